@@ -1,8 +1,40 @@
-import com.google.gson.*;
-import com.google.gson.JsonParser;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpServer;
 import java.io.*;
+import java.lang.management.ManagementFactory;
 import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
 
 /**
  * RecoverSecret
@@ -12,6 +44,39 @@ import java.util.*;
  * Output format:
  * Secret: <decimal-string>
  * Wrong shares: <comma-separated list of keys>   (or "None" if all match)
+ *
+ * Options:
+ * --threads <N>   split the subset search across N fork-join workers (default 1, 0 = all cores)
+ * --early-exit <all|majority|off>
+ *                 stop once a candidate matches all shares (default), more than (n+k)/2 shares, or never
+ * --field <rational|prime>
+ *                 search with exact rationals (default) or modulo a prime; the prime result is re-checked exactly
+ * --prime <P>     use this odd prime below 2^31 for --field prime instead of 2^61 - 1
+ *                 (x coordinates P or more apart are searched with rationals instead)
+ * --decoder <search|berlekamp-welch|ransac>
+ *                 search k-subsets (default), decode directly with Berlekamp-Welch over a prime field,
+ *                 which corrects up to (n-k)/2 wrong shares in polynomial time, or evaluate random
+ *                 k-subsets until a better polynomial than the best found would have been sampled with
+ *                 probability 1 - epsilon, printing the samples tried and that confidence
+ * --epsilon <E>   miss probability at which --decoder ransac stops (default 1e-6)
+ * --mmap          memory-map input.json and parse it in place instead of streaming it through a Reader
+ * --load-threads <N>
+ *                 convert share values on N worker threads while the file is still being read (default 1)
+ * --batch <DIR|FILE|->
+ *                 recover every *.json share set in DIR, or each line of a newline-delimited FILE (or
+ *                 stdin) in one process, searching on --threads shared workers; prints one JSON result line
+ *                 per input
+ * --serve <PORT>  stay resident and answer POST http://127.0.0.1:PORT/recover with a share set as the body
+ *                 (0 picks a free port); the reply is {"secret": ..., "wrong": [...]} or {"error": ...}
+ * --max-work <S>  with --batch or --serve, admit jobs while their work in flight stays within S (default
+ *                 2^24); a job counts C(n,k) subsets, or n^3 with berlekamp-welch, but at most S/2, and
+ *                 only one such job runs at a time. Running jobs split the --threads workers in proportion
+ *                 to their counts, so a job running alone uses all of them
+ * --stats         print per-phase wall time and allocation, subset and gcd counters as JSON on stderr at
+ *                 exit; the same counters are published over JMX with --stats, --batch and --serve
+ * --progress <SECONDS>
+ *                 report the share of the C(n,k) subsets scanned, subsets/s, best match count and ETA on
+ *                 stderr at this interval during a subset search
  */
 public class RecoverSecret {
     // Simple rational number class using BigInteger
@@ -23,6 +88,7 @@ public class RecoverSecret {
             if (d.signum() == 0) throw new ArithmeticException("zero denominator");
             if (d.signum() < 0) { n = n.negate(); d = d.negate(); }
             BigInteger g = n.gcd(d);
+            Stats.GLOBAL.gcds.increment();
             if (!g.equals(BigInteger.ONE)) {
                 n = n.divide(g);
                 d = d.divide(g);
@@ -71,120 +137,2281 @@ public class RecoverSecret {
         Share(String key, BigInteger x, BigInteger y) { this.key = key; this.x = x; this.y = y; }
     }
 
-    static Rational lagrangeF0(List<Share> subset) {
-        int k = subset.size();
-        Rational acc = Rational.zero();
-        for (int i = 0; i < k; ++i) {
-            Share si = subset.get(i);
-            Rational term = new Rational(si.y);
-            Rational li_at0 = Rational.one();
-            for (int j = 0; j < k; ++j) {
+    /**
+     * Shares in columns instead of one object per share: x-coordinates in a long[] (a BigInteger is
+     * kept only for an x that does not fit), the y magnitudes packed back to back in one byte[]
+     * with a sign and an offset per share, and each key stored once. Everything is addressed by
+     * share index in file order. x(i) and y(i) build their BigInteger on demand, so callers in a
+     * hot loop should read each coordinate once.
+     */
+    static final class ShareStore {
+        private int size;
+        private String[] keys = new String[16];
+        private long[] x = new long[16];
+        private BigInteger[] wideX;                 // null until some x does not fit in a long
+        private byte[] sign = new byte[16];
+        private int[] start = new int[17];          // y of share i is limbs[start[i] .. start[i + 1])
+        private byte[] limbs = new byte[256];
+
+        static ShareStore of(List<Share> shares) {
+            ShareStore store = new ShareStore();
+            for (Share s : shares) store.add(s.key, s.x, s.y);
+            return store;
+        }
+
+        void add(String key, BigInteger xi, BigInteger yi) {
+            if (size == keys.length) {
+                int cap = size * 2;
+                keys = Arrays.copyOf(keys, cap);
+                x = Arrays.copyOf(x, cap);
+                sign = Arrays.copyOf(sign, cap);
+                start = Arrays.copyOf(start, cap + 1);
+                if (wideX != null) wideX = Arrays.copyOf(wideX, cap);
+            }
+            keys[size] = key;
+            if (xi.bitLength() < Long.SIZE) {
+                x[size] = xi.longValue();
+            } else {
+                if (wideX == null) wideX = new BigInteger[keys.length];
+                wideX[size] = xi;
+            }
+            sign[size] = (byte) yi.signum();
+            byte[] mag = yi.abs().toByteArray();
+            int skip = mag.length > 1 && mag[0] == 0 ? 1 : 0;     // toByteArray's sign byte
+            int len = yi.signum() == 0 ? 0 : mag.length - skip;
+            int at = start[size];
+            if (at + len > limbs.length) limbs = Arrays.copyOf(limbs, Math.max(limbs.length * 2, at + len));
+            System.arraycopy(mag, skip, limbs, at, len);
+            start[size + 1] = at + len;
+            size++;
+        }
+
+        int size() { return size; }
+
+        String key(int i) { return keys[i]; }
+
+        /** True if x(i) is held as a long. */
+        boolean smallX(int i) { return wideX == null || wideX[i] == null; }
+
+        long xLong(int i) { return x[i]; }
+
+        BigInteger x(int i) { return smallX(i) ? BigInteger.valueOf(x[i]) : wideX[i]; }
+
+        BigInteger y(int i) {
+            int len = start[i + 1] - start[i];
+            return len == 0 ? BigInteger.ZERO : new BigInteger(sign[i], limbs, start[i], len);
+        }
+
+        Share share(int i) { return new Share(keys[i], x(i), y(i)); }
+    }
+
+    /**
+     * The pairwise x differences x_i - x_j of a share list, computed once and shared by every
+     * subset and worker. Only i > j is kept, in a triangular array at
+     * i * (i - 1) / 2 + j; the (j, i) entry is the same value negated. The table is filled on the
+     * first get(), since only the BigInteger fallback of Polynomial.interpolate reads it. Above
+     * LIMIT shares it would not fit comfortably in memory and entries are computed on demand instead.
+     */
+    static final class PairTable {
+        static final int LIMIT = 1024;
+
+        final ShareStore shares;
+        final int n;
+        private volatile BigInteger[] v;
+
+        PairTable(ShareStore shares) {
+            this.shares = shares;
+            this.n = shares.size();
+        }
+
+        /** The entry for i > j. */
+        BigInteger get(int i, int j) {
+            if (n > LIMIT) return shares.x(i).subtract(shares.x(j));
+            BigInteger[] t = v;
+            if (t == null) t = fill();
+            return t[i * (i - 1) / 2 + j];
+        }
+
+        private synchronized BigInteger[] fill() {
+            if (v == null) {
+                BigInteger[] t = new BigInteger[n * (n - 1) / 2];
+                for (int i = 1; i < n; ++i) {
+                    for (int j = 0; j < i; ++j) t[i * (i - 1) / 2 + j] = shares.x(i).subtract(shares.x(j));
+                }
+                v = t;
+            }
+            return v;
+        }
+
+        /**
+         * Product of the (subset[pos], j) entries over the other members j of the subset, i.e. the
+         * denominator of a barycentric weight.
+         */
+        BigInteger product(int[] subset, int pos) {
+            int i = subset[pos];
+            BigInteger r = BigInteger.ONE;
+            boolean negate = false;
+            for (int j : subset) {
                 if (j == i) continue;
-                Share sj = subset.get(j);
-                Rational numerator = new Rational(sj.x.negate());
-                Rational denominator = new Rational(si.x.subtract(sj.x));
-                li_at0 = li_at0.mul(numerator.div(denominator));
+                BigInteger f = j < i ? get(i, j) : get(j, i);
+                negate ^= j > i;
+                r = r.multiply(f);
             }
-            term = term.mul(li_at0);
-            acc = acc.add(term);
+            return negate ? r.negate() : r;
         }
-        return acc;
+    }
+
+    static Rational lagrangeF0(List<Share> subset) {
+        return lagrangeEvaluateAt(subset, BigInteger.ZERO);
     }
 
     static Rational lagrangeEvaluateAt(List<Share> subset, BigInteger x) {
+        BigInteger[] nd = lagrangeFractionFree(subset, x);
+        return new Rational(nd[0], nd[1]);
+    }
+
+    /**
+     * Fraction-free Lagrange interpolation: returns {N, D} with f(x) = N / D, unreduced. Terms are
+     * combined over a running common denominator with plain BigInteger products, so no gcd is taken;
+     * D is zero if two shares have the same x.
+     */
+    static BigInteger[] lagrangeFractionFree(List<Share> subset, BigInteger x) {
         int k = subset.size();
-        Rational acc = Rational.zero();
+        long[] small = smallCoordinates(subset, x);
+        BigInteger accNum = BigInteger.ZERO;
+        BigInteger accDen = BigInteger.ONE;
         for (int i = 0; i < k; ++i) {
             Share si = subset.get(i);
-            Rational term = new Rational(si.y);
-            Rational li = Rational.one();
+            BigInteger num = null;
+            BigInteger den = null;
+            if (small != null) {
+                try {
+                    num = si.y.multiply(BigInteger.valueOf(differenceProduct(small, i, small[k])));
+                    den = BigInteger.valueOf(differenceProduct(small, i, small[i]));
+                } catch (ArithmeticException overflow) {
+                    small = null;
+                }
+            }
+            if (den == null) {
+                num = si.y;
+                den = BigInteger.ONE;
+                for (int j = 0; j < k; ++j) {
+                    if (j == i) continue;
+                    Share sj = subset.get(j);
+                    num = num.multiply(x.subtract(sj.x));
+                    den = den.multiply(si.x.subtract(sj.x));
+                }
+            }
+            accNum = accNum.multiply(den).add(num.multiply(accDen));
+            accDen = accDen.multiply(den);
+        }
+        return new BigInteger[] { accNum, accDen };
+    }
+
+    // The subset's x-coordinates followed by the evaluation point, or null if one does not fit in a long
+    static long[] smallCoordinates(List<Share> subset, BigInteger x) {
+        int k = subset.size();
+        long[] v = new long[k + 1];
+        for (int i = 0; i <= k; ++i) {
+            BigInteger c = i < k ? subset.get(i).x : x;
+            if (c.bitLength() >= Long.SIZE) return null;
+            v[i] = c.longValue();
+        }
+        return v;
+    }
+
+    /** prod_{j != i} (at - x[j]) over the first k entries; throws ArithmeticException on overflow. */
+    static long differenceProduct(long[] x, int i, long at) {
+        long p = 1;
+        for (int j = 0; j < x.length - 1; ++j) {
+            if (j != i) p = Math.multiplyExact(p, Math.subtractExact(at, x[j]));
+        }
+        return p;
+    }
+
+    /**
+     * Interpolating polynomial in coefficient form, f(x) = (c[0] + c[1] x + ... + c[k-1] x^(k-1)) / den
+     * with integer c and den > 0. Building it costs O(k^2) once per subset; after that each share is
+     * checked with an O(k) Horner evaluation instead of a fresh Lagrange sum.
+     */
+    static final class Polynomial {
+        final BigInteger[] c;
+        final BigInteger den;
+
+        Polynomial(BigInteger[] c, BigInteger den) { this.c = c; this.den = den; }
+
+        /** Interpolates shares[subset[0..k-1]]; returns null if two of them have the same x. */
+        static Polynomial interpolate(ShareStore shares, int[] subset, PairTable diffs) {
+            int k = subset.length;
+            long[][] smallQ = new long[k][k];
+            long[] smallD = new long[k];
+            boolean small = smallBasis(shares, subset, smallQ, smallD);
+            BigInteger[] m = null;
+            if (!small) {
+                // master polynomial m(x) = prod (x - x_j), coefficients low to high
+                m = new BigInteger[k + 1];
+                Arrays.fill(m, BigInteger.ZERO);
+                m[0] = BigInteger.ONE;
+                for (int j = 0; j < k; ++j) {
+                    BigInteger xj = shares.x(subset[j]);
+                    for (int t = j + 1; t > 0; --t) m[t] = m[t - 1].subtract(xj.multiply(m[t]));
+                    m[0] = m[0].multiply(xj).negate();
+                }
+            }
+
+            BigInteger[] num = new BigInteger[k];
+            Arrays.fill(num, BigInteger.ZERO);
+            BigInteger den = BigInteger.ONE;
+            BigInteger[] q = new BigInteger[k];
+            for (int i = 0; i < k; ++i) {
+                BigInteger di;
+                if (small) {
+                    if (smallD[i] == 0) return null;
+                    di = BigInteger.valueOf(smallD[i]);
+                    for (int t = 0; t < k; ++t) q[t] = BigInteger.valueOf(smallQ[i][t]);
+                } else {
+                    BigInteger xi = shares.x(subset[i]);
+                    di = diffs.product(subset, i);
+                    if (di.signum() == 0) return null;
+                    // q(x) = m(x) / (x - x_i) by synthetic division, the numerator of the i-th basis polynomial
+                    q[k - 1] = m[k];
+                    for (int t = k - 1; t > 0; --t) q[t - 1] = m[t].add(xi.multiply(q[t]));
+                }
+                // num / den += y_i * q / d_i
+                BigInteger scale = shares.y(subset[i]).multiply(den);
+                for (int t = 0; t < k; ++t) num[t] = num[t].multiply(di).add(q[t].multiply(scale));
+                den = den.multiply(di);
+            }
+
+            // a single reduction so the Horner evaluations work on small numbers
+            BigInteger g = den;
+            for (int t = 0; t < k && !g.equals(BigInteger.ONE); ++t) {
+                g = g.gcd(num[t]);
+                Stats.GLOBAL.gcds.increment();
+            }
+            if (den.signum() < 0) g = g.negate();
+            if (!g.equals(BigInteger.ONE)) {
+                for (int t = 0; t < k; ++t) num[t] = num[t].divide(g);
+                den = den.divide(g);
+            }
+            return new Polynomial(num, den);
+        }
+
+        /**
+         * The same basis numerators q[i] and denominators d[i] = prod_{j != i} (x_i - x_j) in long
+         * arithmetic, for the usual case of small integer x-coordinates. Returns false if an x does
+         * not fit in a long or a product overflows; the arrays are then left partly filled.
+         */
+        static boolean smallBasis(ShareStore shares, int[] subset, long[][] q, long[] d) {
+            int k = subset.length;
+            long[] x = new long[k];
             for (int j = 0; j < k; ++j) {
-                if (j == i) continue;
-                Share sj = subset.get(j);
-                Rational numerator = new Rational(x.subtract(sj.x));
-                Rational denominator = new Rational(si.x.subtract(sj.x));
-                li = li.mul(numerator.div(denominator));
+                if (!shares.smallX(subset[j])) return false;
+                x[j] = shares.xLong(subset[j]);
             }
-            term = term.mul(li);
-            acc = acc.add(term);
+            try {
+                long[] m = new long[k + 1];
+                m[0] = 1;
+                for (int j = 0; j < k; ++j) {
+                    for (int t = j + 1; t > 0; --t) m[t] = Math.subtractExact(m[t - 1], Math.multiplyExact(x[j], m[t]));
+                    m[0] = Math.negateExact(Math.multiplyExact(m[0], x[j]));
+                }
+                for (int i = 0; i < k; ++i) {
+                    q[i][k - 1] = m[k];
+                    for (int t = k - 1; t > 0; --t) q[i][t - 1] = Math.addExact(m[t], Math.multiplyExact(x[i], q[i][t]));
+                    long di = 1;
+                    for (int j = 0; j < k; ++j) {
+                        if (j != i) di = Math.multiplyExact(di, Math.subtractExact(x[i], x[j]));
+                    }
+                    d[i] = di;
+                }
+                return true;
+            } catch (ArithmeticException overflow) {
+                return false;
+            }
+        }
+
+        /** The numerator c(x), by Horner's rule. */
+        BigInteger numeratorAt(BigInteger x) {
+            BigInteger v = BigInteger.ZERO;
+            for (int t = c.length - 1; t >= 0; --t) v = v.multiply(x).add(c[t]);
+            return v;
+        }
+
+        boolean passesThrough(BigInteger x, BigInteger y) {
+            return numeratorAt(x).equals(y.multiply(den));
         }
-        return acc;
+
+        Rational at(BigInteger x) { return new Rational(numeratorAt(x), den); }
     }
 
-    static void combinations(int n, int k, int start, ArrayList<Integer> cur, List<List<Integer>> out) {
-        if (cur.size() == k) { out.add(new ArrayList<>(cur)); return; }
-        for (int i = start; i <= n - (k - cur.size()); ++i) {
-            cur.add(i);
-            combinations(n, k, i + 1, cur, out);
-            cur.remove(cur.size() - 1);
+    // Agreement flags as a bitset, bit i of word i / 64 for share i; workers reuse one per subset
+    static final class Mask {
+        static long[] of(int n) { return new long[(n + 63) >>> 6]; }
+
+        static void set(long[] mask, int i) { mask[i >>> 6] |= 1L << i; }
+
+        static boolean get(long[] mask, int i) { return (mask[i >>> 6] & (1L << i)) != 0; }
+
+        static int count(long[] mask) {
+            int c = 0;
+            for (long w : mask) c += Long.bitCount(w);
+            return c;
         }
     }
 
-    public static void main(String[] args) throws Exception {
-        // 🔹 Instead of stdin, read from input.json
-        String jsonText = new String(java.nio.file.Files.readAllBytes(java.nio.file.Paths.get("input.json")));
-        jsonText = jsonText.trim();
-        if (jsonText.isEmpty()) {
-            System.err.println("No JSON input found in input.json");
-            return;
+    // Interpolates one k-subset and checks every share against it; each worker owns its instance
+    interface Evaluator {
+        /**
+         * Interpolates the shares at the given indices and overwrites mask (see Mask) with one
+         * agreement bit per share. Returns the number of agreeing shares, or -1 if the subset is
+         * singular, in which case mask is unspecified.
+         */
+        int evaluate(int[] subset, long[] mask);
+
+        /** Adds the time this worker's evaluate() calls spent interpolating and verifying to Stats. */
+        default void flush() {}
+    }
+
+    // Exact evaluation with Rational arithmetic
+    static final class RationalEvaluator implements Evaluator {
+        final ShareStore shares;
+        final PairTable diffs;
+        final Stats.EvaluationTimer timer = new Stats.EvaluationTimer();
+
+        RationalEvaluator(ShareStore shares, PairTable diffs) { this.shares = shares; this.diffs = diffs; }
+
+        @Override public int evaluate(int[] subset, long[] mask) {
+            timer.start();
+            Polynomial poly = Polynomial.interpolate(shares, subset, diffs);
+            timer.interpolated();
+            if (poly == null) return -1;
+            Arrays.fill(mask, 0);
+            for (int i = 0; i < shares.size(); ++i) {
+                if (poly.passesThrough(shares.x(i), shares.y(i))) Mask.set(mask, i);
+            }
+            timer.verified();
+            return Mask.count(mask);
         }
 
-        Gson gson = new Gson();
-        JsonObject root = JsonParser.parseString(jsonText).getAsJsonObject();
+        @Override public void flush() { timer.flush(); }
+    }
+
+    /**
+     * Arithmetic in GF(p) on longs, for p = 2^61 - 1 or a prime below 2^31. With p larger than every
+     * x difference no subset of distinct x becomes singular, and exact agreement implies agreement
+     * mod p; the converse can fail, so results found here are confirmed with RationalEvaluator
+     * before they are reported.
+     */
+    static final class PrimeField {
+        /** 2^61 - 1, a Mersenne prime: products reduce with shifts and adds instead of a division. */
+        static final long MERSENNE_61 = (1L << 61) - 1;
 
-        JsonObject keys = root.getAsJsonObject("keys");
-        int n = keys.get("n").getAsInt();
-        int k = keys.get("k").getAsInt();
+        final long p;
+        final int n;
+        final long[] x, y;                     // share coordinates reduced mod p
 
-        List<Share> shares = new ArrayList<>();
-        for (Map.Entry<String, JsonElement> entry : root.entrySet()) {
-            String key = entry.getKey();
-            if (key.equals("keys")) continue;
-            JsonObject shareObj = entry.getValue().getAsJsonObject();
-            int base = Integer.parseInt(shareObj.get("base").getAsString());
-            String valueStr = shareObj.get("value").getAsString();
-            BigInteger y;
-            try { y = new BigInteger(valueStr, base); }
-            catch (Exception ex) { y = new BigInteger(valueStr.toLowerCase(), base); }
-            BigInteger x = new BigInteger(key);
-            shares.add(new Share(key, x, y));
+        PrimeField(ShareStore shares, long p) {
+            this.p = p;
+            this.n = shares.size();
+            this.x = new long[n];
+            this.y = new long[n];
+            BigInteger m = BigInteger.valueOf(p);
+            for (int i = 0; i < n; ++i) {
+                x[i] = shares.x(i).mod(m).longValue();
+                y[i] = shares.y(i).mod(m).longValue();
+            }
         }
 
-        if (shares.size() != n) {
-            System.err.println("Warning: actual shares count (" + shares.size() + ") != n (" + n + ")");
-            n = shares.size();
+        /**
+         * Whether p exceeds every x difference, so that no nonzero difference vanishes mod p. If not,
+         * some subsets of distinct x are singular mod p and the search has to run on rationals.
+         */
+        static boolean fits(ShareStore shares, long p) {
+            if (shares.size() == 0) return true;
+            BigInteger min = shares.x(0), max = min;
+            for (int i = 1; i < shares.size(); ++i) {
+                BigInteger xi = shares.x(i);
+                if (xi.compareTo(min) < 0) min = xi;
+                if (xi.compareTo(max) > 0) max = xi;
+            }
+            return max.subtract(min).compareTo(BigInteger.valueOf(p)) < 0;
+        }
+
+        long add(long a, long b) {
+            long s = a + b;
+            return s >= p ? s - p : s;
+        }
+
+        long sub(long a, long b) {
+            long d = a - b;
+            return d < 0 ? d + p : d;
+        }
+
+        long mul(long a, long b) {
+            if (p != MERSENNE_61) return a * b % p;     // p < 2^31, so the product fits
+            // a * b = hi * 2^64 + lo < 2^122, and 2^61 = 1 mod p folds the high bits onto the low ones
+            long hi = Math.multiplyHigh(a, b), lo = a * b;
+            long r = (lo & MERSENNE_61) + ((lo >>> 61) | (hi << 3));
+            r = (r & MERSENNE_61) + (r >>> 61);
+            return r >= MERSENNE_61 ? r - MERSENNE_61 : r;
+        }
+
+        /** a^-1 mod p for a != 0, by the extended Euclidean algorithm. */
+        long inverse(long a) {
+            long r0 = p, r1 = a, t0 = 0, t1 = 1;
+            while (r1 != 0) {
+                long q = r0 / r1;
+                long r = r0 - q * r1; r0 = r1; r1 = r;
+                long t = t0 - q * t1; t0 = t1; t1 = t;
+            }
+            return t0 < 0 ? t0 + p : t0;
+        }
+
+        /** Inverts every (nonzero) entry in place with a single inverse(), by prefix products. */
+        void invertAll(long[] v) {
+            long[] prefix = new long[v.length];
+            long acc = 1;
+            for (int i = 0; i < v.length; ++i) {
+                prefix[i] = acc;
+                acc = mul(acc, v[i]);
+            }
+            long inv = inverse(acc);
+            for (int i = v.length - 1; i >= 0; --i) {
+                long vi = v[i];
+                v[i] = mul(inv, prefix[i]);
+                inv = mul(inv, vi);
+            }
+        }
+
+        /**
+         * Coefficients mod p of the subset's polynomial, low to high, or null if two of its x
+         * coincide mod p; see Polynomial.interpolate.
+         */
+        long[] coefficients(int[] subset) {
+            int k = subset.length;
+            long[] w = new long[k];                 // barycentric weights 1 / prod (x_i - x_j)
+            for (int a = 0; a < k; ++a) {
+                long xi = x[subset[a]], d = 1;
+                for (int b = 0; b < k; ++b) if (b != a) d = mul(d, sub(xi, x[subset[b]]));
+                if (d == 0) return null;
+                w[a] = d;
+            }
+            invertAll(w);
+            long[] m = new long[k + 1];
+            m[0] = 1;
+            for (int j = 0; j < k; ++j) {
+                long xj = x[subset[j]];
+                for (int t = j + 1; t > 0; --t) m[t] = sub(m[t - 1], mul(xj, m[t]));
+                m[0] = sub(0, mul(xj, m[0]));
+            }
+            long[] c = new long[k];
+            long[] q = new long[k];
+            for (int a = 0; a < k; ++a) {
+                int i = subset[a];
+                long wy = mul(w[a], y[i]);
+                q[k - 1] = m[k];
+                for (int t = k - 1; t > 0; --t) q[t - 1] = add(m[t], mul(x[i], q[t]));
+                for (int t = 0; t < k; ++t) c[t] = add(c[t], mul(wy, q[t]));
+            }
+            return c;
+        }
+
+        long horner(long[] c, long at) {
+            long v = 0;
+            for (int t = c.length - 1; t >= 0; --t) v = add(mul(v, at), c[t]);
+            return v;
+        }
+    }
+
+    static final class PrimeEvaluator implements Evaluator {
+        final PrimeField field;
+        final Stats.EvaluationTimer timer = new Stats.EvaluationTimer();
+
+        PrimeEvaluator(PrimeField field) { this.field = field; }
+
+        @Override public int evaluate(int[] subset, long[] mask) {
+            timer.start();
+            long[] c = field.coefficients(subset);
+            timer.interpolated();
+            if (c == null) return -1;
+            Arrays.fill(mask, 0);
+            for (int i = 0; i < field.n; ++i) {
+                if (field.horner(c, field.x[i]) == field.y[i]) Mask.set(mask, i);
+            }
+            timer.verified();
+            return Mask.count(mask);
+        }
+
+        @Override public void flush() { timer.flush(); }
+    }
+
+    /**
+     * Berlekamp-Welch decoding over GF(p). Solves for Q (degree < e + k) and monic E (degree e) with
+     * Q(x_i) = y_i E(x_i) at every share, where e = (n - k) / 2 is the most wrong shares that can be
+     * corrected; E vanishes at the wrong shares and the polynomial is Q / E. This costs O(n^3)
+     * instead of C(n, k) subset evaluations.
+     */
+    static final class BerlekampWelch {
+        /** Returns the agreeing shares, or null if more than (n - k) / 2 are wrong. */
+        static Candidate decode(PrimeField f, int k) {
+            int n = f.n;
+            if (k <= 0 || n < k) return null;
+            int e = (n - k) / 2;
+            int cols = 2 * e + k;
+            long[][] a = new long[n][cols + 1];
+            long[] pow = new long[e + k];
+            for (int i = 0; i < n; ++i) {
+                pow[0] = 1;
+                for (int j = 1; j < e + k; ++j) pow[j] = f.mul(pow[j - 1], f.x[i]);
+                // Q(x_i) - y_i (e_0 + ... + e_{e-1} x_i^(e-1)) = y_i x_i^e
+                for (int j = 0; j < e + k; ++j) a[i][j] = pow[j];
+                for (int t = 0; t < e; ++t) a[i][e + k + t] = f.sub(0, f.mul(f.y[i], pow[t]));
+                a[i][cols] = f.mul(f.y[i], pow[e]);
+            }
+            long[] sol = solve(f, a, cols);
+            if (sol == null) return null;
+
+            // P = Q / E, with E monic so the long division needs no inverses
+            long[] rem = Arrays.copyOf(sol, e + k);
+            long[] errLocator = new long[e + 1];
+            System.arraycopy(sol, e + k, errLocator, 0, e);
+            errLocator[e] = 1;
+            long[] poly = new long[k];
+            for (int d = e + k - 1; d >= e; --d) {
+                long c = rem[d];
+                poly[d - e] = c;
+                for (int t = 0; t <= e; ++t) rem[d - e + t] = f.sub(rem[d - e + t], f.mul(c, errLocator[t]));
+            }
+            for (int t = 0; t < e; ++t) if (rem[t] != 0) return null;
+
+            Candidate result = new Candidate();
+            result.mask = Mask.of(n);
+            result.matches = 0;
+            int[] subset = new int[k];
+            for (int i = 0; i < n; ++i) {
+                if (f.horner(poly, f.x[i]) != f.y[i]) continue;
+                Mask.set(result.mask, i);
+                if (result.matches < k) subset[result.matches] = i;
+                result.matches++;
+            }
+            if (result.matches < n - e) return null;
+            result.subset = subset;
+            return result;
+        }
+
+        /**
+         * Gauss-Jordan elimination in f on the augmented matrix a (cols unknowns). Free unknowns
+         * are set to zero; returns null if the system is inconsistent.
+         */
+        static long[] solve(PrimeField f, long[][] a, int cols) {
+            int rows = a.length;
+            int[] pivotCol = new int[rows];
+            int r = 0;
+            for (int c = 0; c < cols && r < rows; ++c) {
+                int pivot = r;
+                while (pivot < rows && a[pivot][c] == 0) pivot++;
+                if (pivot == rows) continue;
+                long[] tmp = a[pivot]; a[pivot] = a[r]; a[r] = tmp;
+                long inv = f.inverse(a[r][c]);
+                for (int j = c; j <= cols; ++j) a[r][j] = f.mul(a[r][j], inv);
+                for (int i = 0; i < rows; ++i) {
+                    if (i == r || a[i][c] == 0) continue;
+                    long factor = a[i][c];
+                    for (int j = c; j <= cols; ++j) a[i][j] = f.sub(a[i][j], f.mul(factor, a[r][j]));
+                }
+                pivotCol[r++] = c;
+            }
+            for (int i = r; i < rows; ++i) if (a[i][cols] != 0) return null;
+            long[] x = new long[cols];
+            for (int i = 0; i < r; ++i) x[pivotCol[i]] = a[i][cols];
+            return x;
+        }
+    }
+
+    // Lexicographic k-subset enumerator over a single reused int[]; memory is O(k) regardless of C(n,k)
+    static final class Combinations {
+        final int n;
+        final int k;
+        final int[] c;
+        private boolean started;
+
+        Combinations(int n, int k) {
+            this.n = n;
+            this.k = k;
+            this.c = new int[Math.max(k, 0)];
+        }
+
+        /** Advances to the next subset, returns false when exhausted. The first call yields {0..k-1}. */
+        boolean next() {
+            if (!started) {
+                started = true;
+                if (k > n || k < 0) return false;
+                for (int i = 0; i < k; ++i) c[i] = i;
+                return true;
+            }
+            int i = k - 1;
+            while (i >= 0 && c[i] == n - k + i) --i;
+            if (i < 0) return false;
+            c[i]++;
+            for (int j = i + 1; j < k; ++j) c[j] = c[j - 1] + 1;
+            return true;
+        }
+
+        /** Current subset; the array is reused between calls to next(). */
+        int[] current() { return c; }
+
+        /**
+         * Positions the enumerator on the subset with the given lexicographic rank, so that
+         * current() is valid immediately and next() continues from there. Returns false if out of range.
+         */
+        boolean seek(long rank) {
+            started = true;
+            if (rank < 0 || rank >= binomial(n, k)) return false;
+            int x = 0;
+            for (int i = 0; i < k; ++i) {
+                long block;
+                while ((block = binomial(n - 1 - x, k - 1 - i)) <= rank) {
+                    rank -= block;
+                    x++;
+                }
+                c[i] = x++;
+            }
+            return true;
+        }
+
+        /** C(a, b), or Long.MAX_VALUE if it does not fit in a long. */
+        static long binomial(int a, int b) {
+            if (b < 0 || b > a) return 0;
+            b = Math.min(b, a - b);
+            long r = 1;
+            for (int i = 1; i <= b; ++i) {
+                // r * (a - b + i) / i stays exact because r * (a - b + i) is divisible by i
+                long g = gcd(r, i);
+                long q = (a - b + i) / (i / g);
+                try { r = Math.multiplyExact(r / g, q); }
+                catch (ArithmeticException ex) { return Long.MAX_VALUE; }
+            }
+            return r;
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) { long t = a % b; a = b; b = t; }
+            return a;
+        }
+    }
+
+    // Best candidate seen by one search range; ties keep the lowest rank, like the serial first-found rule
+    static final class Candidate {
+        int matches = -1;
+        Rational secret;            // filled in once, from subset, after the search
+        long[] mask;                // see Mask
+        int[] subset;
+        long rank = -1;             // lexicographic rank of subset
+        long samples = -1;          // subsets tried by --decoder ransac, -1 for the other decoders
+        double confidence;          // ransac only: 1 - the chance a better polynomial was missed
+
+        /** The better of two candidates from any two ranges; ties keep the lower rank. */
+        Candidate merge(Candidate o) {
+            return o.matches > matches || (o.matches == matches && o.rank < rank) ? o : this;
+        }
+    }
+
+    /**
+     * Agreement sets of more than k shares already verified by one worker. Any k-subset of such a
+     * set interpolates the same polynomial and has the same matches, so it need not be interpolated
+     * again; this removes up to C(m, k) - 1 evaluations per polynomial agreeing with m shares. At
+     * most LIMIT sets are kept, the largest ones.
+     */
+    static final class AgreementCache {
+        static final int LIMIT = 16;
+
+        final long[][] masks = new long[LIMIT][];
+        final int[] matches = new int[LIMIT];
+        int size;
+
+        /** The matches of a cached set containing every index of subset, or -1. */
+        int lookup(int[] subset) {
+            for (int e = 0; e < size; ++e) {
+                long[] m = masks[e];
+                boolean all = true;
+                for (int i : subset) {
+                    if (!Mask.get(m, i)) { all = false; break; }
+                }
+                if (all) return matches[e];
+            }
+            return -1;
+        }
+
+        void add(long[] mask, int count) {
+            int smallest = 0;
+            for (int e = 0; e < size; ++e) {
+                if (Arrays.equals(masks[e], mask)) return;
+                if (matches[e] < matches[smallest]) smallest = e;
+            }
+            if (size < LIMIT) smallest = size++;
+            else if (matches[smallest] >= count) return;
+            masks[smallest] = mask.clone();
+            matches[smallest] = count;
+        }
+    }
+
+    /**
+     * Periodic progress of a subset scan on stderr: the fraction of the C(n, k) rank space done,
+     * throughput over the last period, the best match count so far and the time left at the average
+     * rate. Workers count subsets in a LongAdder and raise the best through a LongAccumulator, so
+     * the scan path takes no locks and does not contend on a shared counter.
+     */
+    static final class Progress implements AutoCloseable {
+        final LongAdder done = new LongAdder();
+        final LongAccumulator best = new LongAccumulator(Math::max, -1);
+        final long total;                   // Long.MAX_VALUE if C(n, k) does not fit
+        final PrintStream out;
+        final long start = System.nanoTime();
+        private final ScheduledExecutorService timer;
+        private long lastDone;
+        private long lastTime = start;
+
+        Progress(long total, long periodMillis, PrintStream out) {
+            this.total = total;
+            this.out = out;
+            this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "progress");
+                t.setDaemon(true);
+                return t;
+            });
+            timer.scheduleAtFixedRate(this::report, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+
+        synchronized void report() {
+            long now = System.nanoTime(), d = done.sum();
+            double rate = (d - lastDone) * 1e9 / Math.max(1, now - lastTime);
+            double average = d * 1e9 / Math.max(1, now - start);
+            lastDone = d;
+            lastTime = now;
+            StringBuilder line = new StringBuilder("Progress: ");
+            if (total != Long.MAX_VALUE) {
+                line.append(String.format(Locale.ROOT, "%.2f%% (%d/%d)", 100.0 * d / Math.max(1, total), d, total));
+            } else {
+                line.append(d).append(" subsets");
+            }
+            line.append(String.format(Locale.ROOT, ", %.0f subsets/s, best %d matches", rate, best.get()));
+            if (total != Long.MAX_VALUE && average > 0) {
+                long eta = (long) ((total - d) / average);
+                line.append(String.format(Locale.ROOT, ", ETA %d:%02d:%02d", eta / 3600, eta / 60 % 60, eta % 60));
+            }
+            out.println(line);
+        }
+
+        /** Stops the timer and prints a last line. */
+        @Override public void close() {
+            timer.shutdownNow();
+            report();
+        }
+    }
+
+    // One recovery run over n shares: the subset scan, its stopping rule and the worker pool
+    static final class Search {
+        static final long STEP = 1 << 10;   // longest rank range per step on the Engine's pool
+
+        final int n;
+        final int k;
+        final int stopAt;           // a candidate with this many matches ends the search
+        final Supplier<Evaluator> evaluators;
+        final AtomicBoolean done = new AtomicBoolean();
+        Progress progress;          // null = silent
+
+        Search(int n, int k, EarlyExit earlyExit, Supplier<Evaluator> evaluators) {
+            this.n = n;
+            this.k = k;
+            this.stopAt = earlyExit.threshold(n, k);
+            this.evaluators = evaluators;
+        }
+
+        /** Evaluates the subsets with ranks [from, to) and returns the best one. */
+        Candidate scan(long from, long to) {
+            Candidate best = new Candidate();
+            Combinations combs = new Combinations(n, k);
+            if (from >= to || !combs.seek(from)) return best;
+            Evaluator evaluator = evaluators.get();
+            long[] mask = Mask.of(n);
+            AgreementCache verified = new AgreementCache();
+            // a worker's allocation is its own; on the calling thread the caller's SEARCH span has it
+            boolean worker = Thread.currentThread() instanceof ForkJoinWorkerThread;
+            long allocated = worker ? Stats.GLOBAL.allocationMark() : 0;
+            long evaluated = 0, skipped = 0, singular = 0;
+
+            for (long rank = from; rank < to && !done.get(); ++rank) {
+                if (rank > from && !combs.next()) break;
+                if (progress != null) progress.done.increment();
+                // a subset of a verified set only reproduces the polynomial already found at a lower rank
+                if (verified.lookup(combs.current()) >= 0) {
+                    skipped++;
+                    continue;
+                }
+                SubsetEvaluated event = recording() ? SubsetEvaluated.start() : null;
+                int matches = evaluator.evaluate(combs.current(), mask);
+                if (event != null) event.finish(k, matches, rank);
+                evaluated++;
+                if (matches < 0) singular++;
+                if (matches > k) verified.add(mask, matches);
+                if (matches > best.matches) {
+                    best.matches = matches;
+                    best.mask = mask.clone();
+                    best.subset = combs.current().clone();
+                    best.rank = rank;
+                    if (recording()) CandidateImproved.emit(k, matches, rank);
+                    if (progress != null) progress.best.accumulate(matches);
+                    if (matches >= stopAt) done.set(true);
+                }
+            }
+            Stats.GLOBAL.evaluated.add(evaluated);
+            Stats.GLOBAL.skipped.add(skipped);
+            Stats.GLOBAL.singular.add(singular);
+            evaluator.flush();
+            if (worker) Stats.GLOBAL.allocatedSince(Stats.Phase.SEARCH, allocated);
+            return best;
+        }
+
+        /**
+         * Searches on a pool of threads workers of its own, or on the job's slots of the Engine's
+         * pool when shared is given.
+         */
+        Candidate run(int threads, Slots shared) {
+            long total = Combinations.binomial(n, k);
+            if (total == Long.MAX_VALUE && (threads > 1 || shared != null)) {
+                System.err.println("Warning: C(" + n + "," + k + ") does not fit in a long, searching serially");
+                threads = 1;
+                shared = null;
+            }
+            // a few ranges per worker so uneven subsets (singular ones are skipped early) still balance
+            long grain = threads <= 1 ? Long.MAX_VALUE : Math.max(1, total / (threads * 8L));
+            if (shared != null) return runOn(shared, total, Math.min(grain, STEP));
+            if (threads <= 1) return scan(0, total);
+            RangeSearch all = new RangeSearch(this, 0, total, grain);
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                return pool.invoke(all);
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        /**
+         * Scans one grain-sized rank range per step, taken from a shared cursor, instead of splitting
+         * the whole range into RangeSearch tasks: those would queue ahead of every other search's
+         * tasks on the workers that forked them, and could not give workers back.
+         */
+        private Candidate runOn(Slots shared, long total, long grain) {
+            AtomicLong next = new AtomicLong();
+            Candidate[] best = { new Candidate() };
+            try {
+                shared.run(() -> !done.get() && next.get() < total, () -> {
+                    long from = next.getAndAccumulate(grain, (f, g) -> f + Math.min(g, total - f));
+                    if (from >= total) return;
+                    Candidate c = scan(from, from + Math.min(grain, total - from));
+                    synchronized (best) {
+                        best[0] = best[0].merge(c);
+                    }
+                });
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (best) {
+                return best[0];
+            }
+        }
+    }
+
+    /**
+     * When to stop scanning subsets. A candidate matching more than (n+k)/2 shares is the only
+     * polynomial of degree k-1 that can do so, because two distinct ones share at most k-1 points.
+     */
+    enum EarlyExit {
+        ALL, MAJORITY, OFF;
+
+        int threshold(int n, int k) {
+            switch (this) {
+                case ALL: return n;
+                case MAJORITY: return Math.min(n, (n + k) / 2 + 1);
+                default: return Integer.MAX_VALUE;
+            }
+        }
+    }
+
+    // Splits a rank range in halves until it is small enough to scan directly
+    static final class RangeSearch extends RecursiveTask<Candidate> {
+        private static final long serialVersionUID = 1L;
+
+        final Search search;
+        final long from, to, grain;
+
+        RangeSearch(Search search, long from, long to, long grain) {
+            this.search = search; this.from = from; this.to = to; this.grain = grain;
+        }
+
+        @Override protected Candidate compute() {
+            if (search.done.get()) return new Candidate();
+            if (to - from <= grain) return search.scan(from, to);
+            long mid = from + (to - from) / 2;
+            RangeSearch left = new RangeSearch(search, from, mid, grain);
+            RangeSearch right = new RangeSearch(search, mid, to, grain);
+            right.fork();
+            Candidate l = left.compute();
+            return l.merge(right.join());
+        }
+    }
+
+    /**
+     * Randomized search (RANSAC): evaluates uniformly random k-subsets instead of all C(n, k). A
+     * polynomial agreeing with m shares is hit by a random subset with probability
+     * w = C(m, k) / C(n, k), so after T samples one agreeing with more shares than the best found
+     * was missed with probability at most (1 - w)^T, taking m = best + 1, or m = k while every
+     * sample has been singular (any other subset agrees with at least its own k shares). Sampling
+     * stops once that drops to epsilon, or at the early-exit threshold. A best above the majority
+     * threshold cannot be beaten, so its confidence is 1. Sampling draws with replacement, so on a
+     * small subset space epsilon can take more samples than C(n, k): once that many have been drawn
+     * the sampler gives up and scans every subset with Search instead, which is exact.
+     */
+    static final class Sampler {
+        static final int BATCH = 256;          // samples per step on the Engine's pool
+
+        final int n;
+        final int k;
+        final EarlyExit earlyExit;
+        final int stopAt;
+        final int majority;
+        final long total;
+        final Supplier<Evaluator> evaluators;
+        final double epsilon;
+        private Candidate best = new Candidate();
+        private long samples;
+        private boolean done;
+        private boolean exhausted;             // C(n, k) samples drawn without reaching epsilon
+
+        Sampler(int n, int k, EarlyExit earlyExit, Supplier<Evaluator> evaluators, double epsilon) {
+            this.n = n;
+            this.k = k;
+            this.earlyExit = earlyExit;
+            this.stopAt = earlyExit.threshold(n, k);
+            this.majority = EarlyExit.MAJORITY.threshold(n, k);
+            this.total = Combinations.binomial(n, k);
+            this.evaluators = evaluators;
+            this.epsilon = epsilon;
+        }
+
+        /**
+         * Samples with threads workers on a pool of its own, or in batches on the job's slots of the
+         * Engine's pool when shared is given.
+         */
+        Candidate run(int threads, Slots shared) {
+            if (k < 0 || k > n) return best;
+            if (shared != null) {
+                AtomicLong seeds = new AtomicLong();
+                try {
+                    shared.run(() -> !isDone(), () -> work(seeds.getAndIncrement(), BATCH));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            } else if (threads <= 1) {
+                work(0, Long.MAX_VALUE);
+            } else {
+                List<Callable<Void>> workers = new ArrayList<>();
+                for (int w = 0; w < threads; ++w) {
+                    long seed = w;
+                    workers.add(() -> { work(seed, Long.MAX_VALUE); return null; });
+                }
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    for (Future<Void> f : pool.invokeAll(workers)) f.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    throw new IllegalStateException(ex.getCause());
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            synchronized (this) {
+                if (!exhausted) {
+                    best.samples = samples;
+                    best.confidence = 1 - missProbability();
+                    return best;
+                }
+            }
+            Candidate all = new Search(n, k, earlyExit, evaluators).run(threads, shared);
+            all.samples = samples;
+            all.confidence = 1;
+            return all;
+        }
+
+        private synchronized boolean isDone() { return done; }
+
+        /** Draws up to limit samples, fewer once sampling is done. */
+        private void work(long seed, long limit) {
+            SplittableRandom rnd = new SplittableRandom(seed);
+            Evaluator evaluator = evaluators.get();
+            long[] mask = Mask.of(n);
+            int[] subset = new int[k];
+            boolean worker = Thread.currentThread() instanceof ForkJoinWorkerThread;
+            long allocated = worker ? Stats.GLOBAL.allocationMark() : 0;
+            try {
+                sample(rnd, evaluator, mask, subset, limit);
+            } finally {
+                evaluator.flush();
+                if (worker) Stats.GLOBAL.allocatedSince(Stats.Phase.SEARCH, allocated);
+            }
+        }
+
+        private void sample(SplittableRandom rnd, Evaluator evaluator, long[] mask, int[] subset, long limit) {
+            for (long i = 0; i < limit; ++i) {
+                synchronized (this) {
+                    if (done) return;
+                }
+                sample(rnd, subset);
+                SubsetEvaluated event = recording() ? SubsetEvaluated.start() : null;
+                int matches = evaluator.evaluate(subset, mask);
+                Stats.GLOBAL.evaluated.increment();
+                if (matches < 0) Stats.GLOBAL.singular.increment();
+                synchronized (this) {
+                    if (done) return;
+                    samples++;
+                    if (event != null) event.finish(k, matches, samples);
+                    if (matches > best.matches) {
+                        best = new Candidate();
+                        best.matches = matches;
+                        best.mask = mask.clone();
+                        best.subset = subset.clone();
+                        if (recording()) CandidateImproved.emit(k, matches, samples);
+                    }
+                    if (best.matches >= stopAt || missProbability() <= epsilon) done = true;
+                    else if (samples >= total) done = exhausted = true;
+                }
+            }
+        }
+
+        /** Upper bound on the chance that a polynomial agreeing with more shares was never sampled. */
+        private double missProbability() {
+            int m = Math.max(best.matches + 1, k);
+            if (best.matches >= majority || m > n) return 0;
+            double w = 1;
+            for (int i = 0; i < k; ++i) w *= (double) (m - i) / (n - i);
+            return samples == 0 ? 1 : Math.exp(samples * Math.log1p(-w));
+        }
+
+        /** A uniform k-subset of 0..n-1 by Floyd's algorithm, sorted as the evaluators expect. */
+        private void sample(SplittableRandom rnd, int[] subset) {
+            int size = 0;
+            for (int j = n - k; j < n; ++j) {
+                int t = rnd.nextInt(j + 1);
+                for (int i = 0; i < size; ++i) {
+                    if (subset[i] == t) { t = j; break; }
+                }
+                subset[size++] = t;
+            }
+            Arrays.sort(subset);
+        }
+    }
+
+    // The declared n and k of a share file and its shares in file order
+    static final class ShareSet {
+        int n;
+        int k;
+        final ShareStore shares = new ShareStore();
+        private final ExecutorService decoders;        // null: decode on the reading thread
+        private final List<Future<Share>> pending = new ArrayList<>();
+
+        ShareSet(ExecutorService decoders) { this.decoders = decoders; }
+
+        /**
+         * Hands one tokenized entry to the decoders, so the reader can move on while the radix
+         * conversion runs. Futures are kept in file order, which keeps the share order deterministic.
+         */
+        void add(String key, String base, CharSequence value) {
+            if (decoders == null) append(parseShare(key, base, value));
+            else pending.add(decoders.submit(() -> parseShare(key, base, value)));
+        }
+
+        /** Waits for the decoders and appends their shares in file order. */
+        void finish() throws IOException {
+            try {
+                for (Future<Share> f : pending) append(f.get());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while decoding shares");
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof RuntimeException) throw (RuntimeException) ex.getCause();
+                throw new IOException(ex.getCause());
+            } finally {
+                pending.clear();
+            }
+        }
+
+        private void append(Share s) { shares.add(s.key, s.x, s.y); }
+    }
+
+    /**
+     * Reads a share set with Gson's streaming JsonReader, decoding each share as soon as its entry
+     * has been read, so neither the whole text nor a JsonObject tree is held in memory. Returns
+     * null for an empty input.
+     */
+    static ShareSet readShares(Reader reader) throws IOException {
+        return readShares(reader, null);
+    }
+
+    static ShareSet readShares(Reader reader, ExecutorService decoders) throws IOException {
+        Stats.Span span = Stats.GLOBAL.begin(Stats.Phase.PARSE);
+        try {
+            return parseShareSet(reader, decoders);
+        } finally {
+            span.end();
+        }
+    }
+
+    private static ShareSet parseShareSet(Reader reader, ExecutorService decoders) throws IOException {
+        JsonReader in = new JsonReader(reader);
+        try {
+            if (in.peek() == JsonToken.END_DOCUMENT) return null;
+        } catch (EOFException ex) {
+            return null;
         }
+        ShareSet set = new ShareSet(decoders);
+        boolean sawKeys = false;
+        in.beginObject();
+        while (in.hasNext()) {
+            String key = in.nextName();
+            in.beginObject();
+            if (key.equals("keys")) {
+                sawKeys = true;
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (name.equals("n")) set.n = in.nextInt();
+                    else if (name.equals("k")) set.k = in.nextInt();
+                    else in.skipValue();
+                }
+            } else {
+                String base = null, value = null;
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (name.equals("base")) base = in.nextString();
+                    else if (name.equals("value")) value = in.nextString();
+                    else in.skipValue();
+                }
+                if (base == null || value == null) throw new JsonParseException("Share " + key + " needs a base and a value");
+                set.add(key, base, value);
+            }
+            in.endObject();
+        }
+        in.endObject();
+        if (in.peek() != JsonToken.END_DOCUMENT) throw new JsonParseException("Trailing data after the share set");
+        set.finish();
+        if (!sawKeys) throw new JsonParseException("Missing \"keys\" object");
+        return set;
+    }
+
+    static Share parseShare(String key, String base, CharSequence value) {
+        ShareParsed event = recording() ? ShareParsed.start() : null;
+        int radix = Integer.parseInt(base);
+        BigInteger y = Radix.parse(value, radix);
+        if (event != null) event.finish(key, radix, value.length(), y.bitLength());
+        return new Share(key, new BigInteger(key), y);
+    }
+
+    /**
+     * Divide-and-conquer radix conversion for share values. The digits are split in two, both halves
+     * are converted recursively and recombined as high * radix^len(low) + low, so the cost follows
+     * BigInteger's Karatsuba/Toom-Cook multiplication instead of the quadratic digit-by-digit loop
+     * of new BigInteger(String, radix). The powers of each radix are cached across all shares.
+     * Digits are case-insensitive and a leading sign is accepted, as with BigInteger.
+     */
+    static final class Radix {
+        static final int LEAF_GROUPS = 32;     // digit groups converted directly, without splitting
+
+        private static final Radix[] CACHE = new Radix[Character.MAX_RADIX + 1];
+
+        final int radix;
+        final int groupDigits;                 // digits that always fit in a long
+        final BigInteger groupPower;           // radix^groupDigits
+        final int leafDigits;
+        private volatile BigInteger[] powers;  // powers[i] = radix^(leafDigits << i)
+
+        private Radix(int radix) {
+            this.radix = radix;
+            int d = 0;
+            long p = 1;
+            while (p <= Long.MAX_VALUE / radix) { p *= radix; d++; }
+            this.groupDigits = d;
+            this.groupPower = BigInteger.valueOf(p);
+            this.leafDigits = d * LEAF_GROUPS;
+            this.powers = new BigInteger[] { BigInteger.valueOf(radix).pow(leafDigits) };
+        }
+
+        static synchronized Radix of(int radix) {
+            if (CACHE[radix] == null) CACHE[radix] = new Radix(radix);
+            return CACHE[radix];
+        }
+
+        static BigInteger parse(CharSequence s, int radix) {
+            if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) throw new NumberFormatException("Radix out of range");
+            int from = 0, to = s.length();
+            boolean negative = false;
+            if (to > 0 && (s.charAt(0) == '-' || s.charAt(0) == '+')) {
+                negative = s.charAt(0) == '-';
+                from = 1;
+            }
+            if (from == to) throw new NumberFormatException("Zero length BigInteger");
+            BigInteger v = of(radix).convert(s, from, to);
+            return negative ? v.negate() : v;
+        }
+
+        BigInteger convert(CharSequence s, int from, int to) {
+            int len = to - from;
+            if (len <= leafDigits) return convertLeaf(s, from, to);
+            // the low part is the largest cached power block below len, so it holds at least half the digits
+            int i = 0;
+            while ((long) leafDigits << (i + 1) < len) i++;
+            int split = to - (leafDigits << i);
+            return convert(s, from, split).multiply(power(i)).add(convert(s, split, to));
+        }
+
+        private BigInteger convertLeaf(CharSequence s, int from, int to) {
+            BigInteger acc = BigInteger.ZERO;
+            int end = from + (to - from) % groupDigits;
+            if (end == from) end += groupDigits;
+            for (int start = from; start < to; start = end, end += groupDigits) {
+                long group = 0;
+                for (int i = start; i < end; ++i) {
+                    int digit = Character.digit(s.charAt(i), radix);
+                    if (digit < 0) throw new NumberFormatException("Illegal digit '" + s.charAt(i) + "' for radix " + radix);
+                    group = group * radix + digit;
+                }
+                acc = start == from ? BigInteger.valueOf(group) : acc.multiply(groupPower).add(BigInteger.valueOf(group));
+            }
+            return acc;
+        }
+
+        private BigInteger power(int i) {
+            BigInteger[] p = powers;
+            if (i < p.length) return p[i];
+            synchronized (this) {
+                p = powers;
+                if (i >= p.length) {
+                    BigInteger[] grown = Arrays.copyOf(p, i + 1);
+                    for (int j = p.length; j <= i; ++j) grown[j] = grown[j - 1].multiply(grown[j - 1]);
+                    powers = p = grown;
+                }
+            }
+            return p[i];
+        }
+    }
+
+    /**
+     * Reads a share file by memory-mapping it and parsing keys, bases and values straight from the
+     * mapped bytes, so the file is never decoded into a String. Files larger than 2 GB are mapped in
+     * 1 GB chunks. Only strict JSON is accepted, unlike the lenient streaming reader.
+     */
+    static final class MappedShareReader {
+        static final int CHUNK_BITS = 30;
+        static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+        final MappedByteBuffer[] chunks;
+        final long size;
+        long pos;
+
+        MappedShareReader(FileChannel ch) throws IOException {
+            size = ch.size();
+            chunks = new MappedByteBuffer[(int) ((size + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int c = 0; c < chunks.length; ++c) {
+                long start = (long) c << CHUNK_BITS;
+                chunks[c] = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, 1L << CHUNK_BITS));
+            }
+        }
+
+        /** Same contract as readShares. */
+        static ShareSet read(Path path, ExecutorService decoders) throws IOException {
+            Stats.Span span = Stats.GLOBAL.begin(Stats.Phase.PARSE);
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                return new MappedShareReader(ch).readSet(decoders);
+            } finally {
+                span.end();
+            }
+        }
+
+        ShareSet readSet(ExecutorService decoders) throws IOException {
+            if (skipWhitespace() < 0) return null;
+            ShareSet set = new ShareSet(decoders);
+            boolean sawKeys = false;
+            expect('{');
+            if (skipWhitespace() == '}') {
+                pos++;
+            } else {
+                do {
+                    String key = readString();
+                    expect(':');
+                    expect('{');
+                    if (key.equals("keys")) {
+                        sawKeys = true;
+                        for (String name = firstName(); name != null; name = nextName()) {
+                            if (name.equals("n")) set.n = Integer.parseInt(readScalar().toString());
+                            else if (name.equals("k")) set.k = Integer.parseInt(readScalar().toString());
+                            else skipValue();
+                        }
+                    } else {
+                        String base = null;
+                        CharSequence value = null;
+                        for (String name = firstName(); name != null; name = nextName()) {
+                            if (name.equals("base")) base = readScalar().toString();
+                            else if (name.equals("value")) value = readScalar();
+                            else skipValue();
+                        }
+                        if (base == null || value == null) throw new JsonParseException("Share " + key + " needs a base and a value");
+                        set.add(key, base, value);
+                    }
+                } while (separator('}'));
+            }
+            if (skipWhitespace() >= 0) throw error("trailing data");
+            set.finish();
+            if (!sawKeys) throw new JsonParseException("Missing \"keys\" object");
+            return set;
+        }
+
+        private int byteAt(long p) {
+            return chunks[(int) (p >>> CHUNK_BITS)].get((int) (p & CHUNK_MASK)) & 0xff;
+        }
+
+        /** Skips whitespace and returns the next byte without consuming it, or -1 at end of file. */
+        private int skipWhitespace() {
+            while (pos < size) {
+                int b = byteAt(pos);
+                if (b != ' ' && b != '\n' && b != '\r' && b != '\t') return b;
+                pos++;
+            }
+            return -1;
+        }
+
+        private void expect(char c) {
+            if (skipWhitespace() != c) throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        /** After a member: consumes ',' and returns true, or consumes close and returns false. */
+        private boolean separator(char close) {
+            int b = skipWhitespace();
+            pos++;
+            if (b == ',') return true;
+            if (b == close) return false;
+            throw error("expected ',' or '" + close + "'");
+        }
+
+        /** First member name of an object whose '{' was just read, or null if it is empty. */
+        private String firstName() {
+            if (skipWhitespace() == '}') { pos++; return null; }
+            String name = readString();
+            expect(':');
+            return name;
+        }
+
+        private String nextName() {
+            if (!separator('}')) return null;
+            String name = readString();
+            expect(':');
+            return name;
+        }
+
+        private String readString() {
+            return readScalar().toString();
+        }
+
+        /**
+         * A string's contents or a bare literal (number) as a view on the mapped bytes. Strings
+         * with escapes are decoded into a String instead.
+         */
+        private CharSequence readScalar() {
+            int b = skipWhitespace();
+            if (b != '"') {
+                long start = pos;
+                while (pos < size && (b = byteAt(pos)) != ',' && b != '}' && b != ']'
+                        && b != ' ' && b != '\n' && b != '\r' && b != '\t') pos++;
+                if (pos == start) throw error("expected a value");
+                return new MappedChars(start, pos);
+            }
+            long start = ++pos;
+            while (pos < size && (b = byteAt(pos)) != '"') {
+                if (b == '\\') return readEscaped(start);
+                pos++;
+            }
+            if (pos >= size) throw error("unterminated string");
+            return new MappedChars(start, pos++);
+        }
+
+        private String readEscaped(long start) {
+            StringBuilder sb = new StringBuilder();
+            for (long p = start; p < pos; ++p) sb.append((char) byteAt(p));
+            while (pos < size) {
+                int b = byteAt(pos++);
+                if (b == '"') return sb.toString();
+                if (b != '\\') { sb.append((char) b); continue; }
+                if (pos >= size) break;
+                int e = byteAt(pos++);
+                switch (e) {
+                    case 'n': sb.append('\n'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'u':
+                        if (pos + 4 > size) throw error("bad escape");
+                        sb.append((char) Integer.parseInt(new MappedChars(pos, pos + 4).toString(), 16));
+                        pos += 4;
+                        break;
+                    default: sb.append((char) e);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private void skipValue() {
+            int b = skipWhitespace();
+            if (b != '{' && b != '[') { readScalar(); return; }
+            int depth = 0;
+            do {
+                b = skipWhitespace();
+                if (b == '"') { readScalar(); continue; }
+                if (b == '{' || b == '[') depth++;
+                else if (b == '}' || b == ']') depth--;
+                pos++;
+            } while (depth > 0 && pos < size);
+            if (depth > 0) throw error("unterminated value");
+        }
+
+        private JsonParseException error(String what) {
+            return new JsonParseException(what + " at byte " + pos);
+        }
+
+        // ASCII view of a byte range of the mapped file
+        final class MappedChars implements CharSequence {
+            final long start, end;
 
-        List<List<Integer>> combs = new ArrayList<>();
-        combinations(n, k, 0, new ArrayList<>(), combs);
+            MappedChars(long start, long end) { this.start = start; this.end = end; }
 
-        int bestMatches = -1;
-        Rational bestSecret = null;
-        List<Boolean> bestMask = null;
+            @Override public int length() { return (int) (end - start); }
+            @Override public char charAt(int i) { return (char) byteAt(start + i); }
+            @Override public CharSequence subSequence(int from, int to) { return new MappedChars(start + from, start + to); }
+            @Override public String toString() {
+                byte[] b = new byte[length()];
+                for (int i = 0; i < b.length; ++i) b[i] = (byte) byteAt(start + i);
+                return new String(b, StandardCharsets.ISO_8859_1);
+            }
+        }
+    }
 
-        for (List<Integer> comb : combs) {
-            List<Share> subset = new ArrayList<>();
-            for (int idx : comb) subset.add(shares.get(idx));
-            Rational f0;
-            try { f0 = lagrangeF0(subset); }
-            catch (Exception ex) { continue; }
+    static final class Options implements Cloneable {
+        int threads = 1;
+        EarlyExit earlyExit = EarlyExit.ALL;
+        boolean primeField;
+        long prime;                 // 0 = choose one from the shares
+        boolean berlekampWelch;
+        boolean ransac;
+        double epsilon = 1e-6;
+        boolean mmap;
+        int loadThreads = 1;
+        String batch;               // null = a single run on input.json
+        int port = -1;              // >= 0: serve over HTTP on this loopback port (0 = any free one)
+        long maxWork = 1L << 24;    // batch/server: work admitted at once, see Engine
+        Slots slots;                // the job's share of the Engine's pool, null = a pool per search
+        boolean stats;
+        long progressMillis;        // 0 = no progress reports
 
-            int matches = 0;
-            List<Boolean> mask = new ArrayList<>();
-            for (Share s : shares) {
-                Rational eval = lagrangeEvaluateAt(subset, s.x);
-                BigInteger maybeInt = eval.toBigIntegerIfIntegral();
-                boolean equal = (maybeInt != null && maybeInt.equals(s.y));
-                mask.add(equal);
-                if (equal) matches++;
+        Options copy() {
+            try {
+                return (Options) clone();
+            } catch (CloneNotSupportedException ex) {
+                throw new AssertionError(ex);
             }
-            if (matches > bestMatches) {
-                bestMatches = matches;
-                bestSecret = f0;
-                bestMask = mask;
+        }
+
+        static Options parse(String[] args) {
+            Options o = new Options();
+            for (int a = 0; a < args.length; ++a) {
+                String arg = args[a];
+                boolean hasValue = a + 1 < args.length;
+                if (arg.equals("--threads") && hasValue) {
+                    o.threads = Integer.parseInt(args[++a]);
+                    if (o.threads <= 0) o.threads = Runtime.getRuntime().availableProcessors();
+                } else if (arg.equals("--early-exit") && hasValue) {
+                    o.earlyExit = EarlyExit.valueOf(args[++a].toUpperCase(Locale.ROOT));
+                } else if (arg.equals("--field") && hasValue) {
+                    String f = args[++a];
+                    if (!f.equals("rational") && !f.equals("prime")) throw new IllegalArgumentException("Unknown field: " + f);
+                    o.primeField = f.equals("prime");
+                } else if (arg.equals("--prime") && hasValue) {
+                    o.prime = Long.parseLong(args[++a]);
+                    if (o.prime <= 2 || o.prime >= 1L << 31 || !BigInteger.valueOf(o.prime).isProbablePrime(64)) {
+                        throw new IllegalArgumentException("--prime must be an odd prime below 2^31");
+                    }
+                    o.primeField = true;
+                } else if (arg.equals("--batch") && hasValue) {
+                    o.batch = args[++a];
+                } else if (arg.equals("--max-work") && hasValue) {
+                    o.maxWork = Long.parseLong(args[++a]);
+                } else if (arg.equals("--serve") && hasValue) {
+                    o.port = Integer.parseInt(args[++a]);
+                } else if (arg.equals("--progress") && hasValue) {
+                    o.progressMillis = (long) (Double.parseDouble(args[++a]) * 1000);
+                } else if (arg.equals("--stats")) {
+                    o.stats = true;
+                } else if (arg.equals("--mmap")) {
+                    o.mmap = true;
+                } else if (arg.equals("--load-threads") && hasValue) {
+                    o.loadThreads = Integer.parseInt(args[++a]);
+                    if (o.loadThreads <= 0) o.loadThreads = Runtime.getRuntime().availableProcessors();
+                } else if (arg.equals("--decoder") && hasValue) {
+                    String d = args[++a];
+                    if (!d.equals("search") && !d.equals("berlekamp-welch") && !d.equals("ransac")) {
+                        throw new IllegalArgumentException("Unknown decoder: " + d);
+                    }
+                    o.berlekampWelch = d.equals("berlekamp-welch");
+                    o.ransac = d.equals("ransac");
+                } else if (arg.equals("--epsilon") && hasValue) {
+                    o.epsilon = Double.parseDouble(args[++a]);
+                    if (!(o.epsilon > 0 && o.epsilon < 1)) throw new IllegalArgumentException("--epsilon must be in (0, 1)");
+                } else {
+                    throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            return o;
+        }
+    }
+
+    /** Finds the best subset and fills in its exact secret. */
+    static Candidate recover(ShareStore shares, int k, Options opts) {
+        RecoveryCompleted event = recording() ? RecoveryCompleted.start() : null;
+        Stats stats = Stats.GLOBAL;
+        stats.recoveries.increment();
+        int threads = opts.threads;
+        Stats.Span span;
+        PairTable diffs = new PairTable(shares);
+        Supplier<Evaluator> exact = () -> new RationalEvaluator(shares, diffs);
+        Candidate best = null;
+        if (opts.primeField || opts.berlekampWelch) {
+            span = stats.begin(Stats.Phase.PRIME);
+            long p = opts.prime != 0 ? opts.prime : PrimeField.MERSENNE_61;
+            PrimeField field = PrimeField.fits(shares, p) ? new PrimeField(shares, p) : null;
+            span.end();
+            if (field == null) {
+                System.err.println("Warning: x coordinates are " + (opts.prime != 0 ? "--prime " + p : "2^61")
+                        + " or more apart, searching with rationals");
+            } else {
+                span = stats.begin(Stats.Phase.SEARCH);
+                if (opts.berlekampWelch) {
+                    best = BerlekampWelch.decode(field, k);
+                    if (best == null) System.err.println("Warning: Berlekamp-Welch decoding failed, searching subsets");
+                } else if (opts.ransac) {
+                    best = new Sampler(shares.size(), k, opts.earlyExit, () -> new PrimeEvaluator(field), opts.epsilon).run(threads, opts.slots);
+                } else {
+                    best = runSearch(new Search(shares.size(), k, opts.earlyExit, () -> new PrimeEvaluator(field)), opts);
+                }
+                span.end();
+                if (best != null && best.subset == null) {
+                    // every subset was singular mod p, which says nothing about the exact x coordinates
+                    if (k <= shares.size()) System.err.println("Warning: no subset is invertible mod " + p + ", searching with rationals");
+                    best = null;
+                }
+                if (best != null) {
+                    // confirm exactly; a collision mod p (or a too small prime) falls back to the rational search
+                    span = stats.begin(Stats.Phase.CONFIRM);
+                    long[] mask = Mask.of(shares.size());
+                    if (exact.get().evaluate(best.subset, mask) == best.matches) {
+                        best.mask = mask;
+                    } else {
+                        System.err.println("Warning: result mod " + p + " did not verify, searching with rationals");
+                        best = null;
+                    }
+                    span.end();
+                }
+            }
+        }
+        if (best == null) {
+            span = stats.begin(Stats.Phase.SEARCH);
+            if (opts.ransac) best = new Sampler(shares.size(), k, opts.earlyExit, exact, opts.epsilon).run(threads, opts.slots);
+            else best = runSearch(new Search(shares.size(), k, opts.earlyExit, exact), opts);
+            span.end();
+        }
+        if (best.subset != null) {
+            span = stats.begin(Stats.Phase.SECRET);
+            List<Share> subset = new ArrayList<>(k);
+            for (int i : best.subset) subset.add(shares.share(i));
+            best.secret = lagrangeF0(subset);
+            span.end();
+        }
+        if (event != null) event.finish(shares.size(), k, opts, best);
+        return best;
+    }
+
+    /**
+     * JFR events for profiling recoveries in JDK Mission Control. Event classes are only touched once
+     * JFR is up (-XX:StartFlightRecording or jcmd JFR.start), because loading one initializes JFR,
+     * which costs a few hundred milliseconds of start-up; until then each site is a field read.
+     */
+    static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    @Name("hashira.SubsetEvaluated")
+    @Label("Subset Evaluated")
+    @Category({"Hashira", "Recover Secret"})
+    @Description("One k-subset interpolated and checked against every share; only slow ones by default")
+    @Threshold("1 ms")
+    static final class SubsetEvaluated extends Event {
+        @Label("Subset Size") int subsetSize;
+        @Label("Matches") @Description("Agreeing shares, -1 if the subset is singular") int matches;
+        @Label("Rank") @Description("Position in the scan order, or the sample number") long rank;
+
+        static SubsetEvaluated start() {
+            SubsetEvaluated e = new SubsetEvaluated();
+            e.begin();
+            return e;
+        }
+
+        void finish(int subsetSize, int matches, long rank) {
+            end();
+            if (!shouldCommit()) return;
+            this.subsetSize = subsetSize;
+            this.matches = matches;
+            this.rank = rank;
+            commit();
+        }
+    }
+
+    @Name("hashira.CandidateImproved")
+    @Label("Candidate Improved")
+    @Category({"Hashira", "Recover Secret"})
+    @Description("A search worker found a better polynomial")
+    static final class CandidateImproved extends Event {
+        @Label("Subset Size") int subsetSize;
+        @Label("Matches") int matches;
+        @Label("Rank") @Description("Lexicographic rank of the subset, or the sample number") long rank;
+
+        static void emit(int subsetSize, int matches, long rank) {
+            CandidateImproved e = new CandidateImproved();
+            if (!e.shouldCommit()) return;
+            e.subsetSize = subsetSize;
+            e.matches = matches;
+            e.rank = rank;
+            e.commit();
+        }
+    }
+
+    @Name("hashira.ShareParsed")
+    @Label("Share Parsed")
+    @Category({"Hashira", "Recover Secret"})
+    @Description("One share value converted from its base")
+    static final class ShareParsed extends Event {
+        @Label("Key") String key;
+        @Label("Base") int base;
+        @Label("Digits") int digits;
+        @Label("Bits") int bits;
+
+        static ShareParsed start() {
+            ShareParsed e = new ShareParsed();
+            e.begin();
+            return e;
+        }
+
+        void finish(String key, int base, int digits, int bits) {
+            end();
+            if (!shouldCommit()) return;
+            this.key = key;
+            this.base = base;
+            this.digits = digits;
+            this.bits = bits;
+            commit();
+        }
+    }
+
+    @Name("hashira.RecoveryCompleted")
+    @Label("Recovery Completed")
+    @Category({"Hashira", "Recover Secret"})
+    @Description("One share set recovered, from the search to the secret")
+    static final class RecoveryCompleted extends Event {
+        @Label("Shares") int shares;
+        @Label("Threshold") int threshold;
+        @Label("Matches") int matches;
+        @Label("Decoder") String decoder;
+        @Label("Field") String field;
+        @Label("Recovered") boolean recovered;
+
+        static RecoveryCompleted start() {
+            RecoveryCompleted e = new RecoveryCompleted();
+            e.begin();
+            return e;
+        }
+
+        void finish(int shares, int k, Options opts, Candidate best) {
+            end();
+            if (!shouldCommit()) return;
+            this.shares = shares;
+            this.threshold = k;
+            this.matches = best.matches;
+            this.decoder = opts.berlekampWelch ? "berlekamp-welch" : opts.ransac ? "ransac" : "search";
+            this.field = opts.primeField || opts.berlekampWelch ? "prime" : "rational";
+            this.recovered = best.secret != null;
+            commit();
+        }
+    }
+
+    // Runs a subset search, reporting progress every opts.progressMillis if that is set
+    static Candidate runSearch(Search search, Options opts) {
+        if (opts.progressMillis <= 0) return search.run(opts.threads, opts.slots);
+        try (Progress progress = new Progress(Combinations.binomial(search.n, search.k), opts.progressMillis, System.err)) {
+            search.progress = progress;
+            return search.run(opts.threads, opts.slots);
+        }
+    }
+
+    /** Recovery counters as seen over JMX, under hashira:type=RecoverSecret,name=Stats. */
+    public interface StatsMXBean {
+        long getRecoveries();
+        long getSubsetsEvaluated();
+        long getSubsetsSkipped();
+        long getSingularSubsets();
+        long getGcdCalls();
+        Map<String, Long> getPhaseMillis();
+        Map<String, Long> getPhaseAllocatedBytes();
+    }
+
+    /**
+     * Process-wide instrumentation, cumulative over every job of a batch or server run: wall time
+     * per phase, subsets evaluated, skipped by an AgreementCache and found singular, BigInteger gcd
+     * calls, and the bytes allocated by the threads working on each phase (an estimate: share
+     * decoding on --load-threads workers is not included). Search workers count locally and add once
+     * per range. Phase timing and allocation sampling only run once enable() has been called.
+     *
+     * SEARCH is the wall time of the subset search (or Berlekamp-Welch decoding); INTERPOLATE and
+     * VERIFY split the evaluators' part of it into building each subset's polynomial and checking
+     * every share against it, summed over workers, so with several threads they can exceed SEARCH.
+     * CONFIRM is the exact re-check of a prime field result.
+     */
+    static final class Stats implements StatsMXBean {
+        enum Phase { PARSE, PRIME, SEARCH, INTERPOLATE, VERIFY, CONFIRM, SECRET }
+
+        static final Stats GLOBAL = new Stats();
+
+        final LongAdder recoveries = new LongAdder();
+        final LongAdder evaluated = new LongAdder();
+        final LongAdder skipped = new LongAdder();
+        final LongAdder singular = new LongAdder();
+        final LongAdder gcds = new LongAdder();
+        final LongAdder[] nanos = adders();
+        final LongAdder[] bytes = adders();
+        private volatile boolean enabled;
+
+        private static LongAdder[] adders() {
+            LongAdder[] a = new LongAdder[Phase.values().length];
+            for (int i = 0; i < a.length; ++i) a[i] = new LongAdder();
+            return a;
+        }
+
+        /** Turns on phase timing and publishes the MXBean. */
+        synchronized void enable() {
+            if (enabled) return;
+            enabled = true;
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName("hashira:type=RecoverSecret,name=Stats"));
+            } catch (JMException ex) {
+                System.err.println("Warning: could not register the stats MBean: " + ex.getMessage());
             }
         }
 
+        /** Starts measuring phase on this thread; the span's end() adds the elapsed time and allocation. */
+        Span begin(Phase phase) {
+            return enabled ? new Span(this, phase, allocatedBytes()) : Span.NONE;
+        }
+
+        /** Adds this thread's allocation since start; for search workers, whose wall time the caller's span has. */
+        void allocatedSince(Phase phase, long start) {
+            if (enabled) bytes[phase.ordinal()].add(allocatedBytes() - start);
+        }
+
+        long allocationMark() {
+            return enabled ? allocatedBytes() : 0;
+        }
+
+        static long allocatedBytes() {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            return threads instanceof com.sun.management.ThreadMXBean
+                    ? ((com.sun.management.ThreadMXBean) threads).getCurrentThreadAllocatedBytes() : 0;
+        }
+
+        /**
+         * One evaluator's interpolation and verification time, kept in plain fields and added to
+         * Stats by flush(). Created inactive, reading no clock, unless stats are enabled.
+         */
+        static final class EvaluationTimer {
+            final boolean active = GLOBAL.enabled;
+            long interpolate, verify, t;
+
+            void start() {
+                if (active) t = System.nanoTime();
+            }
+
+            void interpolated() {
+                if (!active) return;
+                long now = System.nanoTime();
+                interpolate += now - t;
+                t = now;
+            }
+
+            void verified() {
+                if (active) verify += System.nanoTime() - t;
+            }
+
+            void flush() {
+                if (!active) return;
+                GLOBAL.nanos[Phase.INTERPOLATE.ordinal()].add(interpolate);
+                GLOBAL.nanos[Phase.VERIFY.ordinal()].add(verify);
+                interpolate = verify = 0;
+            }
+        }
+
+        static final class Span {
+            static final Span NONE = new Span(null, null, 0);
+
+            final Stats stats;
+            final Phase phase;
+            final long t0 = System.nanoTime();
+            final long a0;
+
+            Span(Stats stats, Phase phase, long a0) { this.stats = stats; this.phase = phase; this.a0 = a0; }
+
+            void end() {
+                if (stats == null) return;
+                stats.nanos[phase.ordinal()].add(System.nanoTime() - t0);
+                stats.bytes[phase.ordinal()].add(allocatedBytes() - a0);
+            }
+        }
+
+        @Override public long getRecoveries() { return recoveries.sum(); }
+        @Override public long getSubsetsEvaluated() { return evaluated.sum(); }
+        @Override public long getSubsetsSkipped() { return skipped.sum(); }
+        @Override public long getSingularSubsets() { return singular.sum(); }
+        @Override public long getGcdCalls() { return gcds.sum(); }
+        @Override public Map<String, Long> getPhaseMillis() { return perPhase(nanos, 1_000_000); }
+        @Override public Map<String, Long> getPhaseAllocatedBytes() { return perPhase(bytes, 1); }
+
+        private static Map<String, Long> perPhase(LongAdder[] a, long unit) {
+            Map<String, Long> m = new LinkedHashMap<>();
+            for (Phase p : Phase.values()) m.put(p.name().toLowerCase(Locale.ROOT), a[p.ordinal()].sum() / unit);
+            return m;
+        }
+
+        String toJson() throws IOException {
+            StringWriter text = new StringWriter();
+            JsonWriter json = new JsonWriter(text);
+            json.beginObject();
+            json.name("recoveries").value(getRecoveries());
+            json.name("subsetsEvaluated").value(getSubsetsEvaluated());
+            json.name("subsetsSkipped").value(getSubsetsSkipped());
+            json.name("singularSubsets").value(getSingularSubsets());
+            json.name("gcdCalls").value(getGcdCalls());
+            json.name("phases").beginObject();
+            Map<String, Long> millis = getPhaseMillis(), allocated = getPhaseAllocatedBytes();
+            for (String p : millis.keySet()) {
+                json.name(p).beginObject().name("millis").value(millis.get(p)).name("allocatedBytes").value(allocated.get(p)).endObject();
+            }
+            json.endObject();
+            json.endObject().close();
+            return text.toString();
+        }
+    }
+
+    /**
+     * One job's share of the Engine's pool: steps of its search run on the pool, at most width at a
+     * time. The Engine resizes width as jobs come and go, and since each step is one rank range or
+     * sample batch, a job gives workers back or takes idle ones within a step.
+     */
+    static final class Slots {
+        final ForkJoinPool pool;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition changed = lock.newCondition();
+        private int width;
+        private int busy;
+        private Throwable failure;
+
+        Slots(ForkJoinPool pool, int width) {
+            this.pool = pool;
+            this.width = width;
+        }
+
+        void resize(int width) {
+            lock.lock();
+            try {
+                this.width = width;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /** Runs step on the pool for as long as more holds, and returns once every step has finished. */
+        void run(BooleanSupplier more, Runnable step) throws InterruptedException {
+            lock.lock();
+            try {
+                while (failure == null && more.getAsBoolean()) {
+                    if (busy >= width) {
+                        changed.await();
+                        continue;
+                    }
+                    busy++;
+                    pool.execute(() -> finished(call(step)));
+                }
+                while (busy > 0) changed.await();
+                if (failure != null) {
+                    Throwable t = failure;
+                    failure = null;
+                    throw new IllegalStateException(t);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static Throwable call(Runnable step) {
+            try {
+                step.run();
+                return null;
+            } catch (Throwable t) {
+                return t;
+            }
+        }
+
+        private void finished(Throwable thrown) {
+            lock.lock();
+            try {
+                if (failure == null) failure = thrown;
+                busy--;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs the jobs of the batch and server modes. Each share set is handled on its own virtual
+     * thread (a pooled platform thread before Java 21), which hands the subset search to one shared
+     * ForkJoinPool of --threads workers. Admission control caps the work in flight at budget: a job
+     * is charged its cost, C(n, k) subsets or n^3 for Berlekamp-Welch, but at most budget / 2, and
+     * jobs charged the cap are admitted one at a time, so half the budget is always left for smaller
+     * jobs. The workers are split between the running jobs in proportion to their charges, so a job
+     * running alone uses all of them and one that is joined gives some back. Jobs of at most INLINE
+     * work are searched on their own thread and start even when the pool is full. Waiting uses
+     * locks rather than monitors, which would pin a virtual thread to its carrier.
+     */
+    static final class Engine implements AutoCloseable {
+        static final long INLINE = 1024;
+
+        final ForkJoinPool pool;
+        final ExecutorService jobs = perTaskExecutor();
+        final Options opts;
+        final long budget;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition released = lock.newCondition();
+        private final Map<Slots, Long> running = new HashMap<>();   // pool jobs and their charges
+        private long inFlight;
+        private boolean hugeRunning;
+
+        Engine(Options opts) {
+            this.pool = new ForkJoinPool(opts.threads);
+            this.opts = opts.copy();
+            this.opts.loadThreads = 1;
+            this.budget = Math.max(2, opts.maxWork);
+        }
+
+        /** Admits the input's search, then recovers it on its share of the pool; see resultJson. */
+        String recover(String name, ShareSet input) throws IOException, InterruptedException {
+            long cost = cost(input), charge = Math.min(cost, budget / 2);
+            boolean huge = charge == budget / 2;
+            Options job = opts.copy();
+            if (cost <= INLINE) job.threads = 1;
+            else job.slots = new Slots(pool, 1);
+            admit(charge, huge, job.slots);
+            try {
+                return resultJson(name, input, job);
+            } finally {
+                release(charge, huge, job.slots);
+            }
+        }
+
+        // C(n, k) subsets for a search, n^3 for a Berlekamp-Welch solve
+        private long cost(ShareSet input) {
+            if (input == null) return 0;
+            int n = input.shares.size();
+            if (opts.berlekampWelch) return (long) Math.min((double) n * n * n, Long.MAX_VALUE);
+            return Combinations.binomial(n, input.k);
+        }
+
+        private void admit(long charge, boolean huge, Slots slots) throws InterruptedException {
+            lock.lock();
+            try {
+                while ((huge && hugeRunning) || inFlight + charge > budget) released.await();
+                inFlight += charge;
+                if (huge) hugeRunning = true;
+                if (slots != null) {
+                    running.put(slots, charge);
+                    rebalance();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void release(long charge, boolean huge, Slots slots) {
+            lock.lock();
+            try {
+                inFlight -= charge;
+                if (huge) hugeRunning = false;
+                if (slots != null && running.remove(slots) != null) rebalance();
+                released.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Splits the workers between the running pool jobs by charge, each getting at least one
+        private void rebalance() {
+            double sum = 0;
+            for (long c : running.values()) sum += c;
+            int spare = opts.threads;
+            Slots widest = null;
+            int widestWidth = 0;
+            for (Map.Entry<Slots, Long> e : running.entrySet()) {
+                int w = (int) Math.max(1, opts.threads * e.getValue() / sum);
+                e.getKey().resize(w);
+                spare -= w;
+                if (widest == null || e.getValue() > running.get(widest)) {
+                    widest = e.getKey();
+                    widestWidth = w;
+                }
+            }
+            if (widest != null && spare > 0) widest.resize(widestWidth + spare);
+        }
+
+        @Override public void close() {
+            jobs.shutdownNow();
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Batch mode: recovers every share set under path in one JVM, so start-up, class loading, JIT
+     * warm-up and the radix and prime caches are paid for once. path is a directory of *.json files
+     * (taken in name order) or a newline-delimited file with one share set per line ("-" reads
+     * stdin). Jobs run on an Engine, and one JSON line is printed per input in input order:
+     * {"input":"<file name or line number>","secret":"...","wrong":["key",...]} or
+     * {"input":"...","error":"..."}.
+     */
+    static void runBatch(String path, Options opts, PrintStream out) throws IOException, InterruptedException {
+        Deque<Future<String>> pending = new ArrayDeque<>();
+        int window = opts.threads * 4;               // bounds the inputs held in memory
+        try (Engine engine = new Engine(opts)) {
+            Path dir = Paths.get(path);
+            if (!path.equals("-") && Files.isDirectory(dir)) {
+                List<Path> files = new ArrayList<>();
+                try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, "*.json")) {
+                    for (Path f : ds) if (Files.isRegularFile(f)) files.add(f);
+                }
+                Collections.sort(files);
+                for (Path f : files) {
+                    String name = f.getFileName().toString();
+                    pending.add(engine.jobs.submit(() -> batchJob(name, () -> engine.recover(name, readFile(f, opts)))));
+                    while (pending.size() > window) out.println(await(pending.poll()));
+                }
+            } else {
+                try (BufferedReader lines = path.equals("-")
+                        ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                        : Files.newBufferedReader(dir)) {
+                    int lineNo = 0;
+                    for (String line; (line = lines.readLine()) != null; ) {
+                        ++lineNo;
+                        if (line.trim().isEmpty()) continue;
+                        String name = String.valueOf(lineNo), text = line;
+                        pending.add(engine.jobs.submit(() -> batchJob(name, () -> engine.recover(name, readShares(new StringReader(text))))));
+                        while (pending.size() > window) out.println(await(pending.poll()));
+                    }
+                }
+            }
+            while (!pending.isEmpty()) out.println(await(pending.poll()));
+        }
+    }
+
+    static ShareSet readFile(Path file, Options opts) throws IOException {
+        if (opts.mmap) return MappedShareReader.read(file, null);
+        try (Reader reader = Files.newBufferedReader(file)) {
+            return readShares(reader);
+        }
+    }
+
+    private static String await(Future<String> f) throws InterruptedException {
+        try {
+            return f.get();
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    // One batch input to its result line; failures are reported in the line rather than thrown
+    static String batchJob(String name, Callable<String> job) throws IOException {
+        try {
+            return job.call();
+        } catch (Exception ex) {
+            return errorJson(name, ex);
+        }
+    }
+
+    /** Recovers input and renders {"input":name,"secret":...,"wrong":[...]}; input is left out if name is null. */
+    static String resultJson(String name, ShareSet input, Options opts) throws IOException {
+        if (input == null) throw new IllegalArgumentException("No JSON input found");
+        if (input.shares.size() != input.n) {
+            System.err.println("Warning: " + (name != null ? name + ": " : "") + "actual shares count ("
+                    + input.shares.size() + ") != n (" + input.n + ")");
+        }
+        Candidate best = recover(input.shares, input.k, opts);
+        if (best.secret == null) throw new IllegalArgumentException("No valid polynomial found.");
+        StringWriter text = new StringWriter();
+        JsonWriter json = new JsonWriter(text);
+        json.beginObject();
+        if (name != null) json.name("input").value(name);
+        json.name("secret").value(best.secret.toString());
+        json.name("wrong").beginArray();
+        for (String key : wrongKeys(input.shares, best.mask)) json.value(key);
+        json.endArray();
+        if (best.samples >= 0) json.name("samples").value(best.samples).name("confidence").value(best.confidence);
+        json.endObject().close();
+        return text.toString();
+    }
+
+    static String errorJson(String name, Exception ex) throws IOException {
+        StringWriter text = new StringWriter();
+        JsonWriter json = new JsonWriter(text);
+        json.beginObject();
+        if (name != null) json.name("input").value(name);
+        json.name("error").value(ex.getMessage() != null ? ex.getMessage() : ex.toString());
+        json.endObject().close();
+        return text.toString();
+    }
+
+    /**
+     * Server mode: keeps the engine resident and answers POST /recover, whose body is a share set
+     * in the input.json schema, with {"secret":...,"wrong":[...]}, or {"error":...} and status 400.
+     * Binds to the loopback interface only. Each exchange gets its own virtual thread when the
+     * JVM has them (Java 21+) and a pooled platform thread otherwise, and searches on an Engine.
+     */
+    static HttpServer serve(int port, Options opts) throws IOException {
+        Engine engine = new Engine(opts);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/recover", exchange -> {
+            try {
+                if (!exchange.getRequestMethod().equals("POST")) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    exchange.sendResponseHeaders(405, -1);
+                    return;
+                }
+                int status = 200;
+                String body;
+                try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+                    body = engine.recover(null, readShares(reader));
+                } catch (Exception ex) {
+                    status = 400;
+                    body = errorJson(null, ex);
+                }
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(perTaskExecutor());
+        server.start();
+        return server;
+    }
+
+    // A virtual thread per task on Java 21+, looked up reflectively because the build targets 17
+    static ExecutorService perTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    static List<String> wrongKeys(ShareStore shares, long[] mask) {
+        List<String> keys = new ArrayList<>();
+        for (int i = 0; i < shares.size(); ++i) {
+            if (!Mask.get(mask, i)) keys.add(shares.key(i));
+        }
+        return keys;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options opts;
+        try { opts = Options.parse(args); }
+        catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            return;
+        }
+        if (opts.stats || opts.batch != null || opts.port >= 0) Stats.GLOBAL.enable();
+        if (opts.stats) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    System.err.println(Stats.GLOBAL.toJson());
+                } catch (IOException ex) {
+                    System.err.println("Warning: could not write stats: " + ex.getMessage());
+                }
+            }));
+        }
+        if (opts.batch != null) {
+            runBatch(opts.batch, opts, System.out);
+            return;
+        }
+        if (opts.port >= 0) {
+            HttpServer server = serve(opts.port, opts);
+            System.err.println("Listening on http://127.0.0.1:" + server.getAddress().getPort() + "/recover");
+            return;
+        }
+
+        // 🔹 Instead of stdin, read from input.json
+        ShareSet input;
+        ExecutorService decoders = opts.loadThreads > 1 ? Executors.newFixedThreadPool(opts.loadThreads) : null;
+        try {
+            if (opts.mmap) {
+                input = MappedShareReader.read(Paths.get("input.json"), decoders);
+            } else {
+                try (Reader reader = Files.newBufferedReader(Paths.get("input.json"))) {
+                    input = readShares(reader, decoders);
+                }
+            }
+        } finally {
+            if (decoders != null) decoders.shutdown();
+        }
+        if (input == null) {
+            System.err.println("No JSON input found in input.json");
+            return;
+        }
+        ShareStore shares = input.shares;
+        int n = input.n;
+        int k = input.k;
+
+        if (shares.size() != n) {
+            System.err.println("Warning: actual shares count (" + shares.size() + ") != n (" + n + ")");
+        }
+
+        Candidate best = recover(shares, k, opts);
+        Rational bestSecret = best.secret;
+        long[] bestMask = best.mask;
+
         if (bestSecret == null) {
             System.err.println("No valid polynomial found.");
             return;
@@ -193,15 +2420,15 @@ public class RecoverSecret {
         BigInteger secretInt = bestSecret.toBigIntegerIfIntegral();
         System.out.println("Secret: " + (secretInt != null ? secretInt.toString() : bestSecret.toString()));
 
-        List<String> wrongKeys = new ArrayList<>();
-        for (int i = 0; i < shares.size(); ++i) {
-            if (!bestMask.get(i)) wrongKeys.add(shares.get(i).key);
-        }
+        List<String> wrongKeys = wrongKeys(shares, bestMask);
         if (wrongKeys.isEmpty()) {
             System.out.println("Wrong shares: None");
         } else {
             System.out.println("Wrong shares: " + String.join(",", wrongKeys));
         }
+        if (best.samples >= 0) {
+            System.out.println("Samples: " + best.samples + " (confidence " + best.confidence + ")");
+        }
     }
 }
 
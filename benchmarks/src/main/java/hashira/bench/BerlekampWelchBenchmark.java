@@ -0,0 +1,47 @@
+package hashira.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * recover() with --decoder berlekamp-welch. Kept apart from RecoveryBenchmark because the
+ * decoder only corrects up to (n-k)/2 wrong shares; past that it falls back to the subset
+ * search and the cell would time the wrong thing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BerlekampWelchBenchmark {
+    @Param({"8", "16"})
+    int n;
+
+    @Param({"3", "6"})
+    int k;
+
+    /** "0", or "max" for the most wrong shares the decoder can correct, (n-k)/2. */
+    @Param({"0", "max"})
+    String corrupted;
+
+    @Param({"64", "4096"})
+    int bits;
+
+    Object shares;
+    Object options;
+
+    @Setup
+    public void setup() throws Throwable {
+        int wrong = corrupted.equals("max") ? (n - k) / 2 : Integer.parseInt(corrupted);
+        List<Object> list = ShareSets.generate(n, k, wrong, bits, 1000L * n + 10L * k + wrong);
+        shares = (Object) Target.STORE_OF.invokeExact((List) list);
+        options = (Object) Target.PARSE_OPTIONS.invokeExact(new String[] {"--decoder", "berlekamp-welch"});
+    }
+
+    @Benchmark
+    public Object recover() throws Throwable {
+        return (Object) Target.RECOVER.invokeExact(shares, k, options);
+    }
+}
@@ -0,0 +1,36 @@
+package hashira.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** Full enumeration of the k-subsets of n shares. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CombinationsBenchmark {
+    @Param({"12:6", "20:10", "24:4"})
+    String nk;
+
+    int n, k;
+
+    @Setup
+    public void setup() {
+        String[] parts = nk.split(":");
+        n = Integer.parseInt(parts[0]);
+        k = Integer.parseInt(parts[1]);
+    }
+
+    @Benchmark
+    public long combinations() throws Throwable {
+        Object combs = (Object) Target.NEW_COMBINATIONS.invokeExact(n, k);
+        long sum = 0;
+        while ((boolean) Target.COMBINATIONS_NEXT.invokeExact(combs)) {
+            int[] c = (int[]) Target.COMBINATIONS_CURRENT.invokeExact(combs);
+            sum += c[0];
+        }
+        return sum;
+    }
+}
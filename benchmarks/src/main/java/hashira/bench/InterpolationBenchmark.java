@@ -0,0 +1,39 @@
+package hashira.bench;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpolationBenchmark {
+    @Param({"3", "6", "12"})
+    int k;
+
+    @Param({"64", "1024", "4096"})
+    int bits;
+
+    List<Object> subset;
+    BigInteger at;
+
+    @Setup
+    public void setup() throws Throwable {
+        subset = ShareSets.generate(k, k, 0, bits, 31L * k + bits);
+        at = BigInteger.valueOf(k + 1);
+    }
+
+    @Benchmark
+    public Object lagrangeF0() throws Throwable {
+        return (Object) Target.LAGRANGE_F0.invokeExact((List) subset);
+    }
+
+    @Benchmark
+    public Object lagrangeEvaluateAt() throws Throwable {
+        return (Object) Target.LAGRANGE_AT.invokeExact((List) subset, at);
+    }
+}
@@ -0,0 +1,41 @@
+package hashira.bench;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RationalBenchmark {
+    @Param({"64", "256", "1024", "4096"})
+    int bits;
+
+    Object a, b;
+
+    @Setup
+    public void setup() throws Throwable {
+        Random rnd = new Random(bits);
+        a = (Object) Target.NEW_RATIONAL.invokeExact(new BigInteger(bits, rnd), new BigInteger(bits, rnd).setBit(0));
+        b = (Object) Target.NEW_RATIONAL.invokeExact(new BigInteger(bits, rnd).setBit(0), new BigInteger(bits, rnd).setBit(0));
+    }
+
+    @Benchmark
+    public Object add() throws Throwable {
+        return (Object) Target.RATIONAL_ADD.invokeExact(a, b);
+    }
+
+    @Benchmark
+    public Object mul() throws Throwable {
+        return (Object) Target.RATIONAL_MUL.invokeExact(a, b);
+    }
+
+    @Benchmark
+    public Object div() throws Throwable {
+        return (Object) Target.RATIONAL_DIV.invokeExact(a, b);
+    }
+}
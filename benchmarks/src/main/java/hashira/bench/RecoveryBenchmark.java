@@ -0,0 +1,45 @@
+package hashira.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+/** End-to-end recover() over a grid of share counts, thresholds, corruption and value sizes. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class RecoveryBenchmark {
+    @Param({"8", "16"})
+    int n;
+
+    @Param({"3", "6"})
+    int k;
+
+    @Param({"0", "2"})
+    int corrupted;
+
+    @Param({"64", "4096"})
+    int bits;
+
+    /** Extra RecoverSecret options, '_' separated. */
+    @Param({"--field_rational", "--field_prime"})
+    String mode;
+
+    Object shares;
+    Object options;
+
+    @Setup
+    public void setup() throws Throwable {
+        List<Object> list = ShareSets.generate(n, k, corrupted, bits, 1000L * n + 10L * k + corrupted);
+        shares = (Object) Target.STORE_OF.invokeExact((List) list);
+        options = (Object) Target.PARSE_OPTIONS.invokeExact(mode.split("_"));
+    }
+
+    @Benchmark
+    public Object recover() throws Throwable {
+        return (Object) Target.RECOVER.invokeExact(shares, k, options);
+    }
+}
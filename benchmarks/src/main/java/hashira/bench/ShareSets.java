@@ -0,0 +1,33 @@
+package hashira.bench;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/** Deterministic share sets: a random polynomial of degree k-1 sampled at x = 1..n. */
+final class ShareSets {
+    static List<Object> generate(int n, int k, int corrupted, int bits, long seed) throws Throwable {
+        Random rnd = new Random(seed);
+        BigInteger[] coef = new BigInteger[k];
+        for (int i = 0; i < k; ++i) coef[i] = new BigInteger(bits, rnd);
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < n; ++i) order.add(i);
+        Collections.shuffle(order, rnd);
+        List<Integer> wrong = order.subList(0, Math.min(corrupted, n));
+
+        List<Object> shares = new ArrayList<>(n);
+        for (int i = 0; i < n; ++i) {
+            BigInteger x = BigInteger.valueOf(i + 1);
+            BigInteger y = BigInteger.ZERO;
+            for (int t = k - 1; t >= 0; --t) y = y.multiply(x).add(coef[t]);
+            if (wrong.contains(i)) y = y.add(BigInteger.valueOf(1 + rnd.nextInt(1000)));
+            shares.add((Object) Target.NEW_SHARE.invokeExact(String.valueOf(i + 1), x, y));
+        }
+        return shares;
+    }
+
+    private ShareSets() {}
+}
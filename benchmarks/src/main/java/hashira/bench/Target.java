@@ -0,0 +1,74 @@
+package hashira.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigInteger;
+import java.util.List;
+
+/**
+ * Handles to the package-private internals of RecoverSecret. The program lives in the unnamed
+ * package, which named packages (and JMH's generated code) cannot reference, so the benchmarks
+ * reach it through method handles held in static finals, which the JIT treats as constants.
+ */
+final class Target {
+    static final MethodHandle NEW_SHARE;          // (String, BigInteger, BigInteger) -> Share
+    static final MethodHandle NEW_RATIONAL;       // (BigInteger, BigInteger) -> Rational
+    static final MethodHandle RATIONAL_ADD;       // (Rational, Rational) -> Rational
+    static final MethodHandle RATIONAL_MUL;
+    static final MethodHandle RATIONAL_DIV;
+    static final MethodHandle LAGRANGE_F0;        // (List<Share>) -> Rational
+    static final MethodHandle LAGRANGE_AT;        // (List<Share>, BigInteger) -> Rational
+    static final MethodHandle NEW_COMBINATIONS;   // (int, int) -> Combinations
+    static final MethodHandle COMBINATIONS_NEXT;  // (Combinations) -> boolean
+    static final MethodHandle COMBINATIONS_CURRENT; // (Combinations) -> int[]
+    static final MethodHandle PARSE_OPTIONS;      // (String[]) -> Options
+    static final MethodHandle STORE_OF;           // (List<Share>) -> ShareStore
+    static final MethodHandle RECOVER;            // (ShareStore, int, Options) -> Candidate
+
+    static {
+        try {
+            Class<?> main = Class.forName("RecoverSecret");
+            Class<?> share = Class.forName("RecoverSecret$Share");
+            Class<?> rational = Class.forName("RecoverSecret$Rational");
+            Class<?> combinations = Class.forName("RecoverSecret$Combinations");
+            Class<?> options = Class.forName("RecoverSecret$Options");
+            Class<?> candidate = Class.forName("RecoverSecret$Candidate");
+            Class<?> store = Class.forName("RecoverSecret$ShareStore");
+            MethodHandles.Lookup l = MethodHandles.privateLookupIn(main, MethodHandles.lookup());
+
+            NEW_SHARE = generic(l.findConstructor(share,
+                    MethodType.methodType(void.class, String.class, BigInteger.class, BigInteger.class)));
+            NEW_RATIONAL = generic(l.findConstructor(rational,
+                    MethodType.methodType(void.class, BigInteger.class, BigInteger.class)));
+            RATIONAL_ADD = generic(l.findVirtual(rational, "add", MethodType.methodType(rational, rational)));
+            RATIONAL_MUL = generic(l.findVirtual(rational, "mul", MethodType.methodType(rational, rational)));
+            RATIONAL_DIV = generic(l.findVirtual(rational, "div", MethodType.methodType(rational, rational)));
+            LAGRANGE_F0 = generic(l.findStatic(main, "lagrangeF0", MethodType.methodType(rational, List.class)));
+            LAGRANGE_AT = generic(l.findStatic(main, "lagrangeEvaluateAt",
+                    MethodType.methodType(rational, List.class, BigInteger.class)));
+            NEW_COMBINATIONS = generic(l.findConstructor(combinations,
+                    MethodType.methodType(void.class, int.class, int.class)));
+            COMBINATIONS_NEXT = generic(l.findVirtual(combinations, "next", MethodType.methodType(boolean.class)));
+            COMBINATIONS_CURRENT = generic(l.findVirtual(combinations, "current", MethodType.methodType(int[].class)));
+            PARSE_OPTIONS = generic(l.findStatic(options, "parse", MethodType.methodType(options, String[].class)));
+            STORE_OF = generic(l.findStatic(store, "of", MethodType.methodType(store, List.class)));
+            RECOVER = generic(l.findStatic(main, "recover",
+                    MethodType.methodType(candidate, store, int.class, options)));
+        } catch (ReflectiveOperationException ex) {
+            throw new ExceptionInInitializerError(ex);
+        }
+    }
+
+    /** Erases the program's own classes to Object so call sites can use invokeExact. */
+    private static MethodHandle generic(MethodHandle h) {
+        MethodType t = h.type();
+        for (int i = 0; i < t.parameterCount(); ++i) {
+            if (t.parameterType(i).getName().startsWith("RecoverSecret")) t = t.changeParameterType(i, Object.class);
+        }
+        if (t.returnType().getName().startsWith("RecoverSecret")) t = t.changeReturnType(Object.class);
+        return h.asType(t);
+    }
+
+    private Target() {}
+}